@@ -0,0 +1,166 @@
+package com.x7t.namechecker;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Synthetic load/save benchmark comparing the legacy pretty-printed JSON cache with the binary snapshot,
+ * plus the retained heap of Gson profile trees versus {@link PlayerProfile}.
+ * Development only, not shipped in the mod jar: run with {@code ./gradlew cacheBenchmark [-Pentries=N]};
+ * files go to a temp directory.
+ */
+public class CacheBenchmark {
+    private static final Gson LEGACY_GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Type LEGACY_TYPE = new TypeToken<Map<String, JsonObject>>(){}.getType();
+
+    public static void main(String[] args) throws IOException {
+        for (String arg : args.length > 0 ? args : new String[] {"10000", "100000"}) {
+            for (String line : run(Integer.parseInt(arg))) {
+                System.out.println(line);
+            }
+        }
+    }
+
+    public static List<String> run(int entries) throws IOException {
+        // Measured first, so the profiles do not share names already interned by generate()
+        String heap = measureHeap(entries);
+        Map<String, NameCache.CachedPlayer> data = generate(entries);
+        Path dir = Files.createTempDirectory("x7t-cache-bench");
+        Path jsonFile = dir.resolve("cache.json");
+        Path binFile = dir.resolve("cache.bin");
+        List<String> results = new ArrayList<>();
+        try {
+            long start = System.nanoTime();
+            try (Writer writer = Files.newBufferedWriter(jsonFile)) {
+                Map<String, JsonObject> legacy = new HashMap<>(entries * 4 / 3);
+                data.forEach((key, player) -> legacy.put(key, CacheJournal.toJson(player)));
+                LEGACY_GSON.toJson(legacy, LEGACY_TYPE, writer);
+            }
+            long jsonSave = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (Reader reader = Files.newBufferedReader(jsonFile)) {
+                Map<String, JsonObject> loaded = LEGACY_GSON.fromJson(reader, LEGACY_TYPE);
+                if (loaded.size() != entries) throw new IOException("JSON round trip lost entries");
+                loaded.forEach((key, value) -> CacheJournal.fromJson(value));
+            }
+            long jsonLoad = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(binFile), 64 * 1024)) {
+                SnapshotCodec.write(out, data, 0);
+            }
+            long binSave = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(binFile), 64 * 1024)) {
+                Map<String, NameCache.CachedPlayer> loaded = SnapshotCodec.read(in);
+                if (loaded.size() != entries) throw new IOException("Binary round trip lost entries");
+            }
+            long binLoad = System.nanoTime() - start;
+
+            results.add(String.format("%,d entries", entries));
+            results.add(String.format("  JSON:   save %d ms, load %d ms, %,d KB", jsonSave / 1_000_000, jsonLoad / 1_000_000, Files.size(jsonFile) / 1024));
+            results.add(String.format("  Binary: save %d ms, load %d ms, %,d KB", binSave / 1_000_000, binLoad / 1_000_000, Files.size(binFile) / 1024));
+            results.add(heap);
+        } finally {
+            Files.deleteIfExists(jsonFile);
+            Files.deleteIfExists(binFile);
+            Files.deleteIfExists(dir);
+        }
+        return results;
+    }
+
+    /**
+     * Retained heap per profile as a Gson tree (the old in-memory model) and as a {@link PlayerProfile}.
+     * Measured from used heap after GC, so it is approximate but stable at larger sizes.
+     */
+    static String measureHeap(int entries) {
+        Random random = new Random(42);
+        long before = usedHeap();
+        List<JsonObject> trees = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            trees.add(generateProfile(random, i));
+        }
+        long treeBytes = usedHeap() - before;
+        Reference.reachabilityFence(trees);
+        trees = null;
+
+        random = new Random(42);
+        before = usedHeap();
+        List<PlayerProfile> profiles = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            profiles.add(PlayerProfile.fromJson(generateProfile(random, i), null));
+        }
+        long profileBytes = usedHeap() - before;
+        Reference.reachabilityFence(profiles);
+
+        long treePerEntry = treeBytes / entries;
+        long profilePerEntry = Math.max(1, profileBytes / entries);
+        return String.format("  Heap:   JSON tree %,d B/entry, profile %,d B/entry (%.1fx smaller)",
+            treePerEntry, profilePerEntry, (double) treePerEntry / profilePerEntry);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static Map<String, NameCache.CachedPlayer> generate(int entries) {
+        Random random = new Random(42);
+        Map<String, NameCache.CachedPlayer> data = new HashMap<>(entries * 4 / 3);
+        for (int i = 0; i < entries; i++) {
+            JsonObject profile = generateProfile(random, i);
+            String name = profile.get("username").getAsString();
+            data.put(name.toLowerCase(), new NameCache.CachedPlayer(name, PlayerProfile.fromJson(profile, null), false));
+        }
+        return data;
+    }
+
+    private static JsonObject generateProfile(Random random, int i) {
+        String name = "Player_" + Integer.toString(i, 36);
+        String uuid = new UUID(random.nextLong(), random.nextLong()).toString();
+        JsonObject profile = new JsonObject();
+        profile.addProperty("username", name);
+        profile.addProperty("uuid", uuid);
+        profile.addProperty("created_at", "2015-06-0" + (1 + random.nextInt(9)) + "T12:00:00.000Z");
+        profile.addProperty("views_lifetime", random.nextInt(100_000));
+        JsonArray usernames = new JsonArray();
+        int history = 1 + random.nextInt(4);
+        for (int h = 0; h < history; h++) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("username", h == 0 ? name : "Old_" + Integer.toString(random.nextInt(1 << 24), 36));
+            if (h < history - 1) {
+                entry.addProperty("changed_at", "20" + (10 + random.nextInt(15)) + "-03-14T08:30:00.000Z");
+            }
+            entry.addProperty("available", false);
+            usernames.add(entry);
+        }
+        profile.add("usernames", usernames);
+        return profile;
+    }
+}
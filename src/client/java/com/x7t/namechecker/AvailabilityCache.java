@@ -0,0 +1,150 @@
+package com.x7t.namechecker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived name availability results shared by {@code /namecheck available}, the watchlist and profile lookups.
+ * Entries come from ashcon responses and from crafty profiles. Crafty's flags can lag behind the real state, so they
+ * are kept as hints: shown by the interactive command, ignored by the watchlist and the partial profile refresh.
+ * The TTL is below the watchlist interval, so every watchlist cycle still sees a fresh result.
+ */
+public class AvailabilityCache {
+    public static final long TTL_MS = 45_000;
+    private static final int MAX_ENTRIES = 2000;
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    public static class Entry {
+        public final NameApi.Availability availability;
+        public final long timestamp;
+        // From a crafty profile rather than an availability check
+        public final boolean hint;
+
+        Entry(NameApi.Availability availability, long timestamp, boolean hint) {
+            this.availability = availability;
+            this.timestamp = timestamp;
+            this.hint = hint;
+        }
+    }
+
+    /**
+     * A result younger than {@link #TTL_MS}, or {@code null}.
+     */
+    public static Entry get(String name) {
+        return get(name, CacheStats.Source.INTERACTIVE);
+    }
+
+    public static Entry get(String name, CacheStats.Source source) {
+        return get(name, source, true);
+    }
+
+    /**
+     * Like {@link #get(String, CacheStats.Source)}, but only the result of an actual availability check.
+     */
+    public static Entry getChecked(String name, CacheStats.Source source) {
+        return get(name, source, false);
+    }
+
+    private static Entry get(String name, CacheStats.Source source, boolean hints) {
+        String key = name.toLowerCase();
+        Entry entry = entries.get(key);
+        boolean fresh = entry != null && System.currentTimeMillis() - entry.timestamp <= TTL_MS;
+        if (fresh && (hints || !entry.hint)) {
+            hits.increment();
+            CacheStats.record(source, true);
+            return entry;
+        }
+        if (entry != null && !fresh) {
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        CacheStats.record(source, false);
+        return null;
+    }
+
+    /**
+     * Stores a definitive result; unknown statuses (errors, throttling) are not cached.
+     */
+    public static void put(String name, NameApi.Availability availability) {
+        put(name, availability, false);
+    }
+
+    /**
+     * Fills in hints from a crafty profile: the current name is taken by this player,
+     * historical names carry crafty's own {@code available} flag. Fresh checked results are kept.
+     */
+    public static void recordProfile(PlayerProfile profile) {
+        String current = profile.username();
+        if (current != null) {
+            put(current, NameApi.Availability.of(false, current), true);
+        }
+        for (int i = 0; i < profile.historySize(); i++) {
+            String name = profile.historyName(i);
+            byte availability = profile.availability(i);
+            if (name != null && availability != PlayerProfile.AVAILABILITY_UNKNOWN && !name.equalsIgnoreCase(current)) {
+                put(name, NameApi.Availability.of(availability == PlayerProfile.AVAILABILITY_AVAILABLE, null), true);
+            }
+        }
+    }
+
+    private static void put(String name, NameApi.Availability availability, boolean hint) {
+        if (!availability.isAvailable() && !availability.isTaken()) {
+            return;
+        }
+        String key = name.toLowerCase();
+        // Existing keys are always replaced; a new one makes room by dropping expired entries, else the oldest
+        if (!entries.containsKey(key) && entries.size() >= MAX_ENTRIES) {
+            purgeExpired();
+            if (entries.size() >= MAX_ENTRIES) {
+                evictOldest();
+            }
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(availability, now, hint);
+        if (hint) {
+            entries.merge(key, entry,
+                (old, hinted) -> !old.hint && now - old.timestamp <= TTL_MS ? old : hinted);
+        } else {
+            entries.put(key, entry);
+        }
+    }
+
+    public static void clear() {
+        entries.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    public static int size() {
+        return entries.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    private static void evictOldest() {
+        Map.Entry<String, Entry> oldest = null;
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (oldest == null || candidate.getValue().timestamp < oldest.getValue().timestamp) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now - entry.timestamp > TTL_MS);
+    }
+}
@@ -0,0 +1,324 @@
+package com.x7t.namechecker;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import net.fabricmc.loader.api.FabricLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gamertag to XUID mappings (and the reverse) for Bedrock players on Geyser servers, persisted to {@code bedrock.json}.
+ * The Floodgate-UUID name history itself lives in {@link NameCache}, keyed by the Floodgate UUID.
+ * Bedrock players seen in the tab list are queued and resolved in small background batches,
+ * so {@code /namecheck bedrock} is usually answered without touching the network.
+ */
+public class BedrockCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+    private static final Gson GSON = new Gson();
+    private static final Path CONFIG_DIR = FabricLoader.getInstance().getConfigDir().resolve("x7tnamechecker");
+    private static final Path CACHE_FILE = CONFIG_DIR.resolve("bedrock.json");
+    private static final Type CACHE_TYPE = new TypeToken<Map<String, Entry>>(){}.getType();
+
+    // Gamertags change rarely; after this an entry is re-resolved but still used offline
+    private static final long TTL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long NOT_FOUND_TTL_MS = 5 * 60 * 1000;
+    private static final int MAX_ENTRIES = 5000;
+    private static final int MAX_NOT_FOUND = 1000;
+    private static final int BATCH_SIZE = 8;
+    private static final long SAVE_DELAY_MS = 2000;
+
+    private static final Map<String, Entry> byGamertag = new ConcurrentHashMap<>();
+    private static final Map<String, String> byXuid = new ConcurrentHashMap<>();
+    // Oldest first, bounded like the Java negative cache in NameCache
+    private static final Map<String, Long> notFound = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NOT_FOUND;
+        }
+    });
+    private static final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean draining = new AtomicBoolean(false);
+    private static final AtomicBoolean savePending = new AtomicBoolean(false);
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder prefetched = new LongAdder();
+
+    public static class Entry {
+        public String gamertag;
+        public String xuid;
+        public long timestamp;
+
+        public Entry(String gamertag, String xuid) {
+            this.gamertag = gamertag;
+            this.xuid = xuid;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() - timestamp > TTL_MS;
+        }
+    }
+
+    public static void init() {
+        LookupExecutor.executor().execute(BedrockCache::load);
+    }
+
+    public static void shutdown() {
+        if (savePending.getAndSet(false)) {
+            save();
+        }
+    }
+
+    /**
+     * A mapping resolved within the TTL, or {@code null}.
+     */
+    public static Entry getXuid(String gamertag) {
+        Entry entry = byGamertag.get(gamertag.toLowerCase());
+        if (entry != null && !entry.isExpired()) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Any known mapping regardless of age, for offline mode and API failures
+    public static Entry getXuidOffline(String gamertag) {
+        return byGamertag.get(gamertag.toLowerCase());
+    }
+
+    public static String getGamertag(String xuid) {
+        return byXuid.get(xuid);
+    }
+
+    public static boolean isKnownNotFound(String gamertag) {
+        String key = gamertag.toLowerCase();
+        Long recorded = notFound.get(key);
+        if (recorded != null && System.currentTimeMillis() - recorded > NOT_FOUND_TTL_MS) {
+            notFound.remove(key, recorded);
+            return false;
+        }
+        return recorded != null;
+    }
+
+    /**
+     * Looks up the XUID through Geyser and records the result; completes with {@code null} when not found.
+     */
+    public static CompletableFuture<String> resolve(String gamertag) {
+        return NameApi.fetchXuid(gamertag).thenApply(xuid -> {
+            if (xuid != null) {
+                put(gamertag, xuid);
+            } else {
+                // Re-inserted so the map stays in recording order
+                String key = gamertag.toLowerCase();
+                notFound.remove(key);
+                notFound.put(key, System.currentTimeMillis());
+            }
+            return xuid;
+        });
+    }
+
+    public static void put(String gamertag, String xuid) {
+        String key = gamertag.toLowerCase();
+        notFound.remove(key);
+        // A gamertag change keeps the XUID; drop the old name's mapping
+        String previousName = byXuid.put(xuid, gamertag);
+        if (previousName != null && !previousName.equalsIgnoreCase(gamertag)) {
+            byGamertag.remove(previousName.toLowerCase());
+        }
+        Entry previous = byGamertag.put(key, new Entry(gamertag, xuid));
+        if (previous != null && !previous.xuid.equals(xuid)) {
+            byXuid.remove(previous.xuid, previous.gamertag);
+        }
+        if (byGamertag.size() > MAX_ENTRIES) {
+            trim();
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Floodgate UUID for an XUID ({@code 00000000-0000-0000-xxxx-xxxxxxxxxxxx}), or {@code null} if the XUID is malformed.
+     */
+    public static String floodgateUuid(String xuid) {
+        if (xuid == null || xuid.isEmpty() || !xuid.matches("\\d+")) {
+            return null;
+        }
+        long xuidLong;
+        try {
+            xuidLong = Long.parseLong(xuid);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (xuidLong <= 0) {
+            return null;
+        }
+        return String.format("00000000-0000-0000-%04x-%012x", (xuidLong >> 48) & 0xFFFF, xuidLong & 0xFFFFFFFFFFFFL);
+    }
+
+    public static boolean isFloodgateUuid(String value) {
+        return value.startsWith("00000000-0000-0000-");
+    }
+
+    /**
+     * Queues a tab-list gamertag for background resolution of its XUID and Floodgate history.
+     */
+    public static void enqueue(String gamertag) {
+        if (gamertag.isEmpty() || NameCache.isOfflineMode() || getXuidQuietly(gamertag) != null || isKnownNotFound(gamertag)) {
+            return;
+        }
+        if (queued.add(gamertag.toLowerCase()) && draining.compareAndSet(false, true)) {
+            try {
+                LookupExecutor.submit(BedrockCache::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    // Resolves up to BATCH_SIZE queued names per pass; requests are paced by the API rate limiters
+    private static void drain() {
+        try {
+            while (!queued.isEmpty() && !NameCache.isOfflineMode()) {
+                List<String> batch = new ArrayList<>(BATCH_SIZE);
+                for (String gamertag : queued) {
+                    batch.add(gamertag);
+                    if (batch.size() >= BATCH_SIZE) break;
+                }
+                List<CompletableFuture<?>> lookups = new ArrayList<>(batch.size());
+                for (String gamertag : batch) {
+                    queued.remove(gamertag);
+                    lookups.add(resolve(gamertag).thenCompose(xuid -> {
+                        String uuid = floodgateUuid(xuid);
+                        if (uuid == null || NameCache.hasCached(uuid) || NameCache.isKnownNotFound(uuid)) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        return NameCheckCommand.fetchAndCache(uuid);
+                    }).handle((result, error) -> {
+                        prefetched.increment();
+                        return null;
+                    }));
+                }
+                CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).join();
+            }
+        } finally {
+            draining.set(false);
+            if (!queued.isEmpty() && !NameCache.isOfflineMode() && draining.compareAndSet(false, true)) {
+                try {
+                    LookupExecutor.submit(BedrockCache::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+    }
+
+    private static Entry getXuidQuietly(String gamertag) {
+        Entry entry = byGamertag.get(gamertag.toLowerCase());
+        return entry != null && !entry.isExpired() ? entry : null;
+    }
+
+    public static void clear() {
+        byGamertag.clear();
+        byXuid.clear();
+        notFound.clear();
+        queued.clear();
+        hits.reset();
+        misses.reset();
+        prefetched.reset();
+        scheduleSave();
+    }
+
+    public static int size() {
+        return byGamertag.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static long getPrefetched() {
+        return prefetched.sum();
+    }
+
+    public static int getQueueLength() {
+        return queued.size();
+    }
+
+    private static void trim() {
+        List<Entry> oldest = new ArrayList<>(byGamertag.values());
+        oldest.sort(Comparator.comparingLong(e -> e.timestamp));
+        for (int i = 0; i < oldest.size() - MAX_ENTRIES; i++) {
+            Entry entry = oldest.get(i);
+            byGamertag.remove(entry.gamertag.toLowerCase(), entry);
+            byXuid.remove(entry.xuid, entry.gamertag);
+        }
+    }
+
+    private static void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                if (savePending.getAndSet(false)) {
+                    save();
+                }
+            }, LookupExecutor.delayed(SAVE_DELAY_MS));
+        }
+    }
+
+    private static void load() {
+        if (!Files.exists(CACHE_FILE)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(CACHE_FILE)) {
+            Map<String, Entry> loaded = GSON.fromJson(reader, CACHE_TYPE);
+            if (loaded != null) {
+                for (Entry entry : loaded.values()) {
+                    if (entry != null && entry.gamertag != null && entry.xuid != null) {
+                        byGamertag.putIfAbsent(entry.gamertag.toLowerCase(), entry);
+                        byXuid.putIfAbsent(entry.xuid, entry.gamertag);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to load Bedrock cache: {}", e.getMessage());
+        }
+    }
+
+    private static synchronized void save() {
+        try {
+            if (!Files.exists(CONFIG_DIR)) {
+                Files.createDirectories(CONFIG_DIR);
+            }
+            Path temp = CACHE_FILE.resolveSibling(CACHE_FILE.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(Map.copyOf(byGamertag), CACHE_TYPE, writer);
+            }
+            Files.move(temp, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Failed to save Bedrock cache: {}", e.getMessage());
+        }
+    }
+}
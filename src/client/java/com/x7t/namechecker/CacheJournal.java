@@ -0,0 +1,555 @@
+package com.x7t.namechecker;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiPredicate;
+
+/**
+ * Append-only persistence for {@link NameCache}.
+ * Each put/remove is appended as one JSON line to the journal; compaction periodically writes the
+ * full map to a binary snapshot ({@link SnapshotCodec}, temp file + atomic rename) and truncates the journal.
+ * A legacy {@code cache.json} is read once when no binary snapshot exists and then migrated.
+ * Loading replays the snapshot, then the journal tail; a torn last line from a crash is ignored.
+ * The snapshot carries its compaction generation and the journal's first line the generation of the snapshot it
+ * follows, so a journal left behind by a crash between the snapshot rename and the journal delete is discarded
+ * instead of replayed over the newer snapshot.
+ * <p>
+ * Several game instances can share the files. Appends and compaction hold an exclusive {@link FileChannel#lock}
+ * on the lock file, reads a shared one. The lock file also holds a generation counter that compaction bumps.
+ * Each instance remembers how far it has read the journal; {@link #sync()} stats the journal and, if it changed,
+ * hands the other instances' puts and clears to the external listener. After another instance compacted
+ * (generation changed) the new snapshot is merged first. Removes are not merged: eviction is per instance.
+ */
+public class CacheJournal {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+    private static final Gson GSON = new Gson();
+    private static final Type LEGACY_TYPE = new TypeToken<Map<String, JsonObject>>(){}.getType();
+
+    private final Path snapshotFile;
+    private final Path legacyJsonFile;
+    private final Path journalFile;
+    private final Path lockFile;
+    private final Queue<JsonObject> pending = new ConcurrentLinkedQueue<>();
+    private BiPredicate<String, NameCache.CachedPlayer> externalPut = (key, player) -> false;
+    private Runnable externalClear = () -> { };
+    // Journal bytes already applied, the stamp of that journal, and the compaction generation they belong to
+    private long tailPosition;
+    private long tailStamp;
+    private long generation;
+    private long seenJournalSize = -1;
+    private long seenJournalModified = -1;
+    private volatile long mergedRecords;
+    private int replayedRecords;
+    private boolean migrationPending;
+    private boolean snapshotOutdated;
+    private long lastSaveNanos;
+    private long lastSaveBytes;
+    private long lastLoadNanos;
+    private long lastLoadBytes;
+    private long lastFlushNanos;
+    private long lastFlushBytes;
+    private long compactions;
+
+    public CacheJournal(Path snapshotFile, Path legacyJsonFile, Path journalFile, Path lockFile) {
+        this.snapshotFile = snapshotFile;
+        this.legacyJsonFile = legacyJsonFile;
+        this.journalFile = journalFile;
+        this.lockFile = lockFile;
+    }
+
+    /**
+     * Receives entries written by other instances; {@code onPut} returns whether it applied the entry.
+     * Called with the journal locked, so it must not block on I/O.
+     */
+    public synchronized void setExternalListener(BiPredicate<String, NameCache.CachedPlayer> onPut, Runnable onClear) {
+        this.externalPut = onPut;
+        this.externalClear = onClear;
+    }
+
+    public void recordPut(String key, NameCache.CachedPlayer player) {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", "put");
+        record.addProperty("key", key);
+        record.add("value", toJson(player));
+        pending.add(record);
+    }
+
+    public void recordRemove(String key) {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", "remove");
+        record.addProperty("key", key);
+        pending.add(record);
+    }
+
+    public void recordClear() {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", "clear");
+        pending.add(record);
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Appends all pending records to the journal and returns how many were written.
+     * Records other instances appended first are merged before ours, so the read position stays at the end.
+     */
+    public synchronized int flush() throws IOException {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        return withLock(false, lock -> {
+            syncLocked(lock);
+            int count = appendPending();
+            remember();
+            return count;
+        });
+    }
+
+    private int appendPending() throws IOException {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        StringBuilder batch = new StringBuilder();
+        if (isJournalStale()) {
+            Files.delete(journalFile);
+        }
+        if (!Files.exists(journalFile) || Files.size(journalFile) == 0) {
+            JsonObject stamp = new JsonObject();
+            stamp.addProperty("op", "generation");
+            stamp.addProperty("generation", tailStamp = snapshotGeneration());
+            batch.append(GSON.toJson(stamp)).append('\n');
+        }
+        int count = 0;
+        JsonObject record;
+        while ((record = pending.poll()) != null) {
+            batch.append(GSON.toJson(record)).append('\n');
+            count++;
+        }
+        try (FileChannel channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            tailPosition = channel.size();
+            lastFlushBytes = buffer.capacity();
+        }
+        lastFlushNanos = System.nanoTime() - start;
+        return count;
+    }
+
+    /**
+     * Writes {@code entries} as the new snapshot and truncates the journal.
+     * Records still pending are appended afterwards; replaying them on top of the snapshot is idempotent.
+     * Other instances' journal records are merged into {@code entries} first so the snapshot keeps them.
+     */
+    public synchronized void compact(Map<String, NameCache.CachedPlayer> entries) throws IOException {
+        withLock(false, lock -> {
+            syncLocked(lock);
+            appendPending();
+            long start = System.nanoTime();
+            long next = Math.max(generation, snapshotGeneration()) + 1;
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                SnapshotCodec.write(out, new HashMap<>(entries), next);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(journalFile);
+            writeGeneration(lock, generation = next);
+            tailPosition = 0;
+            remember();
+            replayedRecords = 0;
+            snapshotOutdated = false;
+            lastSaveNanos = System.nanoTime() - start;
+            lastSaveBytes = Files.size(snapshotFile);
+            compactions++;
+
+            if (migrationPending) {
+                migrationPending = false;
+                if (Files.exists(legacyJsonFile)) {
+                    Path migrated = legacyJsonFile.resolveSibling(legacyJsonFile.getFileName() + ".migrated");
+                    Files.move(legacyJsonFile, migrated, StandardCopyOption.REPLACE_EXISTING);
+                    LOGGER.info("Migrated {} to binary snapshot {}", legacyJsonFile.getFileName(), snapshotFile.getFileName());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Merges what other instances wrote since the last call and returns whether anything was applied.
+     * Costs one stat of the journal when nothing changed. Blocks on the file lock, so never call it from the client thread.
+     */
+    public synchronized boolean sync() {
+        long before = mergedRecords;
+        try {
+            BasicFileAttributes attributes = journalAttributes();
+            long size = attributes != null ? attributes.size() : 0;
+            long modified = attributes != null ? attributes.lastModifiedTime().toMillis() : 0;
+            if (size == seenJournalSize && modified == seenJournalModified) {
+                return false;
+            }
+            withLock(true, lock -> {
+                syncLocked(lock);
+                remember();
+                return null;
+            });
+        } catch (IOException e) {
+            LOGGER.debug("Failed to read shared cache changes: {}", e.getMessage());
+        }
+        return mergedRecords != before;
+    }
+
+    // Caller holds the file lock
+    private void syncLocked(FileChannel lock) throws IOException {
+        long current = readGeneration(lock);
+        if (current != generation) {
+            // Another instance compacted: its snapshot holds everything up to there, the new journal starts at 0
+            Map<String, NameCache.CachedPlayer> snapshot = new HashMap<>();
+            readSnapshot(snapshot);
+            for (Map.Entry<String, NameCache.CachedPlayer> entry : snapshot.entrySet()) {
+                if (externalPut.test(entry.getKey(), entry.getValue())) {
+                    mergedRecords++;
+                }
+            }
+            generation = current;
+            tailPosition = 0;
+        }
+        if (!Files.exists(journalFile)) {
+            tailPosition = 0;
+            return;
+        }
+        long stamp = journalStamp();
+        if (stamp < snapshotGeneration()) {
+            // Left over from an interrupted compaction; the next append replaces it
+            return;
+        }
+        if (stamp != tailStamp) {
+            tailPosition = 0;
+            tailStamp = stamp;
+        }
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= tailPosition) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, size - tailPosition));
+            while (buffer.hasRemaining() && channel.read(buffer, tailPosition + buffer.position()) > 0) {
+            }
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] != '\n') continue;
+                String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                lineStart = i + 1;
+                if (line.isBlank()) continue;
+                try {
+                    applyExternal(GSON.fromJson(line, JsonObject.class));
+                } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                    LOGGER.warn("Skipping unreadable cache journal record");
+                }
+            }
+            // A torn line from a crashed instance stays unread until it is completed or compacted away
+            tailPosition += lineStart;
+        }
+    }
+
+    private void applyExternal(JsonObject record) {
+        switch (record.get("op").getAsString()) {
+            case "put" -> {
+                if (!externalPut.test(record.get("key").getAsString(), fromJson(record.get("value").getAsJsonObject()))) {
+                    return;
+                }
+            }
+            case "clear" -> externalClear.run();
+            default -> {
+                return;
+            }
+        }
+        mergedRecords++;
+    }
+
+    private interface LockedAction<T> {
+        T run(FileChannel lock) throws IOException;
+    }
+
+    private <T> T withLock(boolean shared, LockedAction<T> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(lockFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, shared);
+            try {
+                return action.run(channel);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static long readGeneration(FileChannel lock) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && lock.read(buffer, buffer.position()) > 0) {
+        }
+        return buffer.hasRemaining() ? 0 : buffer.getLong(0);
+    }
+
+    private static void writeGeneration(FileChannel lock, long value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, value);
+        while (buffer.hasRemaining()) {
+            lock.write(buffer, buffer.position());
+        }
+        lock.force(false);
+    }
+
+    // Generation of the snapshot on disk; 0 without one or for snapshots from before generations
+    private long snapshotGeneration() {
+        try {
+            return Files.exists(snapshotFile) ? SnapshotCodec.readGeneration(snapshotFile) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Generation of the snapshot the journal was started after; 0 for journals from before the stamp
+    private long journalStamp() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            JsonObject first = GSON.fromJson(reader.readLine(), JsonObject.class);
+            return first != null && "generation".equals(first.get("op").getAsString())
+                ? first.get("generation").getAsLong() : 0;
+        } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+            return 0;
+        }
+    }
+
+    // The snapshot was replaced but the journal it absorbed was never deleted
+    private boolean isJournalStale() throws IOException {
+        return Files.exists(journalFile) && journalStamp() < snapshotGeneration();
+    }
+
+    private BasicFileAttributes journalAttributes() throws IOException {
+        return Files.exists(journalFile) ? Files.readAttributes(journalFile, BasicFileAttributes.class) : null;
+    }
+
+    // Marks the journal as seen so our own writes do not trigger a sync
+    private void remember() throws IOException {
+        BasicFileAttributes attributes = journalAttributes();
+        seenJournalSize = attributes != null ? attributes.size() : 0;
+        seenJournalModified = attributes != null ? attributes.lastModifiedTime().toMillis() : 0;
+    }
+
+    public synchronized Map<String, NameCache.CachedPlayer> load() {
+        try {
+            return withLock(false, lock -> {
+                generation = readGeneration(lock);
+                Map<String, NameCache.CachedPlayer> entries = loadLocked();
+                if (isJournalStale()) {
+                    Files.delete(journalFile);
+                }
+                long snapshotGeneration = snapshotGeneration();
+                if (snapshotGeneration > generation) {
+                    // The compaction that wrote the snapshot did not get to bump the counter
+                    writeGeneration(lock, generation = snapshotGeneration);
+                }
+                tailPosition = Files.exists(journalFile) ? Files.size(journalFile) : 0;
+                tailStamp = Files.exists(journalFile) ? journalStamp() : 0;
+                remember();
+                return entries;
+            });
+        } catch (IOException e) {
+            LOGGER.error("Failed to lock cache files, loading without: {}", e.getMessage());
+            return loadLocked();
+        }
+    }
+
+    private void readSnapshot(Map<String, NameCache.CachedPlayer> entries) {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotFile), 64 * 1024)) {
+            entries.putAll(SnapshotCodec.read(in));
+        } catch (Exception e) {
+            LOGGER.error("Failed to load cache snapshot: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, NameCache.CachedPlayer> loadLocked() {
+        long start = System.nanoTime();
+        Map<String, NameCache.CachedPlayer> entries = new HashMap<>();
+        if (Files.exists(snapshotFile)) {
+            readSnapshot(entries);
+            try {
+                snapshotOutdated = !SnapshotCodec.isCurrentVersion(snapshotFile);
+            } catch (IOException e) {
+                snapshotOutdated = true;
+            }
+        } else if (Files.exists(legacyJsonFile)) {
+            try (Reader reader = Files.newBufferedReader(legacyJsonFile, StandardCharsets.UTF_8)) {
+                Map<String, JsonObject> legacy = GSON.fromJson(reader, LEGACY_TYPE);
+                if (legacy != null) {
+                    for (Map.Entry<String, JsonObject> entry : legacy.entrySet()) {
+                        entries.put(entry.getKey(), fromJson(entry.getValue()));
+                    }
+                }
+                migrationPending = true;
+            } catch (Exception e) {
+                LOGGER.error("Failed to load legacy cache: {}", e.getMessage());
+            }
+        }
+
+        replayedRecords = 0;
+        boolean stale;
+        try {
+            stale = isJournalStale();
+        } catch (IOException e) {
+            stale = false;
+        }
+        if (stale) {
+            LOGGER.warn("Skipping cache journal older than the snapshot");
+        } else if (Files.exists(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        if (apply(entries, GSON.fromJson(line, JsonObject.class))) {
+                            replayedRecords++;
+                        }
+                    } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                        LOGGER.warn("Skipping unreadable cache journal record");
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to replay cache journal: {}", e.getMessage());
+            }
+        }
+        lastLoadNanos = System.nanoTime() - start;
+        lastLoadBytes = getSnapshotSize() + getJournalSize() + (migrationPending ? sizeOf(legacyJsonFile) : 0);
+        return entries;
+    }
+
+    // False for the generation stamp and unknown ops
+    private static boolean apply(Map<String, NameCache.CachedPlayer> entries, JsonObject record) {
+        switch (record.get("op").getAsString()) {
+            case "put" -> entries.put(record.get("key").getAsString(),
+                fromJson(record.get("value").getAsJsonObject()));
+            case "remove" -> entries.remove(record.get("key").getAsString());
+            case "clear" -> entries.clear();
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An entry in the legacy {@code cache.json} shape, which journal records keep using.
+     */
+    static JsonObject toJson(NameCache.CachedPlayer player) {
+        JsonObject value = new JsonObject();
+        value.addProperty("name", player.name);
+        value.addProperty("uuid", player.uuid());
+        value.add("data", player.profile.toJson());
+        value.addProperty("timestamp", player.timestamp);
+        value.addProperty("volatileTimestamp", player.volatileTimestamp);
+        value.addProperty("available", player.available);
+        return value;
+    }
+
+    static NameCache.CachedPlayer fromJson(JsonObject value) {
+        String name = value.has("name") && !value.get("name").isJsonNull() ? value.get("name").getAsString() : null;
+        String uuid = value.has("uuid") && !value.get("uuid").isJsonNull() ? value.get("uuid").getAsString() : null;
+        JsonObject data = value.has("data") && value.get("data").isJsonObject() ? value.getAsJsonObject("data") : new JsonObject();
+        boolean available = value.has("available") && value.get("available").getAsBoolean();
+        NameCache.CachedPlayer player = new NameCache.CachedPlayer(name, PlayerProfile.fromJson(data, uuid), available);
+        player.timestamp = value.has("timestamp") ? value.get("timestamp").getAsLong() : 0;
+        player.volatileTimestamp = value.has("volatileTimestamp") ? value.get("volatileTimestamp").getAsLong() : player.timestamp;
+        return player;
+    }
+
+    // Entries taken over from other game instances since startup
+    public long getMergedRecords() {
+        return mergedRecords;
+    }
+
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    // A legacy JSON file or an older snapshot version still needs rewriting
+    public boolean isMigrationPending() {
+        return migrationPending || snapshotOutdated;
+    }
+
+    public long getLastSaveNanos() {
+        return lastSaveNanos;
+    }
+
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    public long getLastLoadBytes() {
+        return lastLoadBytes;
+    }
+
+    public long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    public long getLastFlushBytes() {
+        return lastFlushBytes;
+    }
+
+    public long getCompactions() {
+        return compactions;
+    }
+
+    public long getJournalSize() {
+        return sizeOf(journalFile);
+    }
+
+    public long getSnapshotSize() {
+        return sizeOf(snapshotFile);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.x7t.namechecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Size/weight-bounded eviction policy for {@link NameCache} (W-TinyLFU).
+ * New entries land in a small LRU window; when they leave it they must beat the coldest main-space
+ * entry on estimated access frequency to be admitted, so one-off scans cannot flush hot profiles.
+ * Main space is a segmented LRU (probation / protected). Pinned keys are never chosen as victims.
+ */
+public class CachePolicy {
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.80;
+
+    private final Map<String, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pinned = new HashSet<>();
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private long maxEntries;
+    private long maxWeight;
+    private long totalWeight;
+    private long evictionCount;
+
+    public CachePolicy(long maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        sketch.ensureCapacity(maxEntries);
+    }
+
+    /**
+     * Records an insert or update and returns the keys that must be evicted to stay within bounds.
+     */
+    public synchronized List<String> onWrite(String key, long weight) {
+        sketch.increment(key);
+        Long previous = find(key);
+        if (previous != null) {
+            segmentOf(key).put(key, weight);
+            totalWeight += weight - previous;
+        } else {
+            window.put(key, weight);
+            totalWeight += weight;
+        }
+        return evict();
+    }
+
+    public synchronized void onRead(String key) {
+        sketch.increment(key);
+        if (window.get(key) != null || protectedSegment.get(key) != null) {
+            return;
+        }
+        Long weight = probation.remove(key);
+        if (weight != null) {
+            protectedSegment.put(key, weight);
+            long protectedMax = Math.max(1, (long) (mainCapacity() * PROTECTED_RATIO));
+            while (protectedSegment.size() > protectedMax) {
+                Map.Entry<String, Long> demoted = eldest(protectedSegment);
+                protectedSegment.remove(demoted.getKey());
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+    }
+
+    public synchronized void onRemove(String key) {
+        Long weight = window.remove(key);
+        if (weight == null) weight = probation.remove(key);
+        if (weight == null) weight = protectedSegment.remove(key);
+        if (weight != null) {
+            totalWeight -= weight;
+        }
+    }
+
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        totalWeight = 0;
+        sketch.clear();
+    }
+
+    public synchronized List<String> setMaximum(long maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        sketch.ensureCapacity(maxEntries);
+        return evict();
+    }
+
+    /**
+     * Evicts {@code count} entries as if the maximum had been lowered by that much, e.g. under memory pressure.
+     */
+    public synchronized List<String> shed(long count) {
+        long limit = maxEntries;
+        maxEntries = Math.max(1, size() - count);
+        try {
+            return evict();
+        } finally {
+            maxEntries = limit;
+        }
+    }
+
+    public synchronized void pin(String key) {
+        pinned.add(key);
+    }
+
+    public synchronized void unpin(String key) {
+        pinned.remove(key);
+    }
+
+    public synchronized boolean isPinned(String key) {
+        return pinned.contains(key);
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public synchronized long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    private long mainCapacity() {
+        return Math.max(1, maxEntries - windowCapacity());
+    }
+
+    private long windowCapacity() {
+        return Math.max(1, (long) (maxEntries * WINDOW_RATIO));
+    }
+
+    private boolean overCapacity() {
+        return size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight);
+    }
+
+    private List<String> evict() {
+        String candidate = null;
+        while (window.size() > windowCapacity()) {
+            Map.Entry<String, Long> eldest = eldest(window);
+            window.remove(eldest.getKey());
+            probation.put(eldest.getKey(), eldest.getValue());
+            candidate = eldest.getKey();
+        }
+
+        List<String> evicted = Collections.emptyList();
+        while (overCapacity()) {
+            String victim = firstUnpinned(probation, candidate);
+            if (victim == null) victim = firstUnpinned(protectedSegment, null);
+            if (victim == null) victim = firstUnpinned(window, null);
+            if (victim == null && candidate != null && !pinned.contains(candidate)) victim = candidate;
+            if (victim == null) break;
+
+            // TinyLFU admission: the window candidate only displaces a colder main entry
+            if (candidate != null && !candidate.equals(victim) && !pinned.contains(candidate)
+                && probation.containsKey(candidate) && sketch.frequency(candidate) <= sketch.frequency(victim)) {
+                victim = candidate;
+            }
+            candidate = null;
+
+            onRemove(victim);
+            evictionCount++;
+            if (evicted.isEmpty()) evicted = new ArrayList<>();
+            evicted.add(victim);
+        }
+        return evicted;
+    }
+
+    private String firstUnpinned(Map<String, Long> segment, String skip) {
+        Iterator<String> it = segment.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (!pinned.contains(key) && !key.equals(skip)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private Long find(String key) {
+        Long weight = window.get(key);
+        if (weight == null) weight = probation.get(key);
+        if (weight == null) weight = protectedSegment.get(key);
+        return weight;
+    }
+
+    private Map<String, Long> segmentOf(String key) {
+        if (window.containsKey(key)) return window;
+        if (probation.containsKey(key)) return probation;
+        return protectedSegment;
+    }
+
+    private static Map.Entry<String, Long> eldest(Map<String, Long> segment) {
+        return segment.entrySet().iterator().next();
+    }
+
+    /**
+     * 4-bit count-min sketch with periodic halving, so frequencies age out.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private long[] table = new long[16];
+        private int sampleSize = 160;
+        private int additions;
+
+        void ensureCapacity(long maximum) {
+            int capacity = (int) Math.min(Math.max(maximum, 16), 1 << 24);
+            int length = Integer.highestOneBit(capacity - 1) << 1;
+            if (length > table.length) {
+                table = new long[length];
+                additions = 0;
+            }
+            sampleSize = 10 * capacity;
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                long h = rehash(hash, i);
+                int index = (int) (h >>> 32) & (table.length - 1);
+                int shift = (int) (h & 15) << 2;
+                frequency = Math.min(frequency, (int) ((table[index] >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                long h = rehash(hash, i);
+                int index = (int) (h >>> 32) & (table.length - 1);
+                int shift = (int) (h & 15) << 2;
+                if (((table[index] >>> shift) & 0xfL) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        void clear() {
+            java.util.Arrays.fill(table, 0L);
+            additions = 0;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private static long rehash(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[(i + 1) & 3];
+            return h ^ (h >>> 29);
+        }
+    }
+}
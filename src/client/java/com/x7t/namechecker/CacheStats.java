@@ -0,0 +1,181 @@
+package com.x7t.namechecker;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Numbers for tuning expiry and capacity: cache lookups split by where they came from, an entry-age histogram,
+ * and a JSON dump of everything {@code /namecheck cache stats} shows.
+ */
+public class CacheStats {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Path DUMP_FILE = FabricLoader.getInstance().getConfigDir().resolve("x7tnamechecker").resolve("cache_stats.json");
+
+    public enum Source { INTERACTIVE, WATCHLIST, OFFLINE }
+
+    // Upper bounds of the age buckets; the last bucket is open-ended
+    private static final long[] AGE_BOUNDS_MS = {60_000L, 5 * 60_000L, 15 * 60_000L, 60 * 60_000L, 6 * 60 * 60_000L, 24 * 60 * 60_000L};
+    public static final String[] AGE_LABELS = {"<1m", "<5m", "<15m", "<1h", "<6h", "<24h", "24h+"};
+
+    private static final LongAdder[] hits = adders();
+    private static final LongAdder[] misses = adders();
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Source.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static void record(Source source, boolean hit) {
+        (hit ? hits : misses)[source.ordinal()].increment();
+    }
+
+    public static long getHits(Source source) {
+        return hits[source.ordinal()].sum();
+    }
+
+    public static long getMisses(Source source) {
+        return misses[source.ordinal()].sum();
+    }
+
+    public static void reset() {
+        for (Source source : Source.values()) {
+            hits[source.ordinal()].reset();
+            misses[source.ordinal()].reset();
+        }
+    }
+
+    public static long[] ageHistogram(Collection<NameCache.CachedPlayer> entries, long now) {
+        long[] counts = new long[AGE_LABELS.length];
+        for (NameCache.CachedPlayer player : entries) {
+            long age = now - player.timestamp;
+            int bucket = 0;
+            while (bucket < AGE_BOUNDS_MS.length && age >= AGE_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        return counts;
+    }
+
+    public static JsonObject toJson() {
+        JsonObject root = new JsonObject();
+        root.addProperty("generatedAt", Instant.now().toString());
+
+        JsonObject heap = new JsonObject();
+        long size = NameCache.getCacheSize();
+        heap.addProperty("entries", size);
+        heap.addProperty("maxEntries", NameCache.getMaxEntries());
+        heap.addProperty("estimatedBytes", NameCache.getEstimatedBytes());
+        heap.addProperty("maxWeightBytes", NameCache.getMaxWeightBytes());
+        heap.addProperty("bytesPerEntry", size > 0 ? NameCache.getEstimatedBytes() / size : 0);
+        root.add("heap", heap);
+
+        JsonObject offHeap = new JsonObject();
+        long offHeapSize = NameCache.getOffHeapSize();
+        offHeap.addProperty("entries", offHeapSize);
+        offHeap.addProperty("fileBytes", NameCache.getOffHeapBytes());
+        offHeap.addProperty("bytesPerEntry", offHeapSize > 0 ? NameCache.getOffHeapBytes() / offHeapSize : 0);
+        offHeap.addProperty("promotions", NameCache.getPromotions());
+        offHeap.addProperty("busyMisses", NameCache.getOffHeapBusyMisses());
+        root.add("offHeap", offHeap);
+
+        JsonObject dataset = new JsonObject();
+        dataset.addProperty("profiles", NameCache.getDatasetSize());
+        dataset.addProperty("fileBytes", NameCache.getDatasetBytes());
+        dataset.addProperty("hits", NameCache.getDatasetHits());
+        if (NameCache.getDatasetImportedAt() > 0) {
+            dataset.addProperty("importedAt", Instant.ofEpochMilli(NameCache.getDatasetImportedAt()).toString());
+        }
+        root.add("dataset", dataset);
+
+        JsonObject lookups = new JsonObject();
+        lookups.addProperty("hits", NameCache.getCacheHits());
+        lookups.addProperty("misses", NameCache.getCacheMisses());
+        lookups.addProperty("hitRate", NameCache.getCacheHitRate());
+        lookups.addProperty("staleServed", NameCache.getStaleHits());
+        lookups.addProperty("refreshes", NameCache.getRefreshCount());
+        lookups.addProperty("negativeHits", NameCache.getNegativeHits());
+        JsonObject bySource = new JsonObject();
+        for (Source source : Source.values()) {
+            JsonObject counts = new JsonObject();
+            counts.addProperty("hits", getHits(source));
+            counts.addProperty("misses", getMisses(source));
+            bySource.add(source.name().toLowerCase(), counts);
+        }
+        lookups.add("bySource", bySource);
+        root.add("lookups", lookups);
+
+        JsonObject expiry = new JsonObject();
+        expiry.addProperty("historyExpiryMinutes", NameCache.getHistoryExpiryMinutes());
+        expiry.addProperty("volatileExpiryMinutes", NameCache.getCacheExpiryMinutes());
+        expiry.addProperty("partialRefreshes", NameCache.getPartialRefreshCount());
+        expiry.addProperty("expired", NameCache.getExpiredCount());
+        expiry.addProperty("evicted", NameCache.getEvictionCount());
+        JsonObject ages = new JsonObject();
+        long[] histogram = NameCache.getAgeHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            ages.addProperty(AGE_LABELS[i], histogram[i]);
+        }
+        expiry.add("ageHistogram", ages);
+        root.add("expiry", expiry);
+
+        CacheJournal journal = NameCache.getJournal();
+        JsonObject persistence = new JsonObject();
+        persistence.addProperty("snapshotBytes", journal.getSnapshotSize());
+        persistence.addProperty("journalBytes", journal.getJournalSize());
+        persistence.addProperty("loadMillis", journal.getLastLoadNanos() / 1_000_000.0);
+        persistence.addProperty("loadBytes", journal.getLastLoadBytes());
+        persistence.addProperty("saveMillis", journal.getLastSaveNanos() / 1_000_000.0);
+        persistence.addProperty("saveBytes", journal.getLastSaveBytes());
+        persistence.addProperty("flushMillis", journal.getLastFlushNanos() / 1_000_000.0);
+        persistence.addProperty("flushBytes", journal.getLastFlushBytes());
+        persistence.addProperty("compactions", journal.getCompactions());
+        persistence.addProperty("mergedFromOtherInstances", journal.getMergedRecords());
+        root.add("persistence", persistence);
+
+        JsonObject availability = new JsonObject();
+        availability.addProperty("entries", AvailabilityCache.size());
+        availability.addProperty("hits", AvailabilityCache.getHits());
+        availability.addProperty("misses", AvailabilityCache.getMisses());
+        root.add("availability", availability);
+
+        JsonObject render = new JsonObject();
+        render.addProperty("profiles", ProfileRenderCache.size());
+        render.addProperty("hits", ProfileRenderCache.getHits());
+        render.addProperty("builds", ProfileRenderCache.getBuilds());
+        root.add("render", render);
+
+        JsonObject bedrock = new JsonObject();
+        bedrock.addProperty("entries", BedrockCache.size());
+        bedrock.addProperty("hits", BedrockCache.getHits());
+        bedrock.addProperty("misses", BedrockCache.getMisses());
+        bedrock.addProperty("prefetched", BedrockCache.getPrefetched());
+        root.add("bedrock", bedrock);
+        return root;
+    }
+
+    /**
+     * Writes {@link #toJson()} to {@code cache_stats.json} in the config directory and returns the file.
+     */
+    public static Path dump() throws IOException {
+        Files.createDirectories(DUMP_FILE.getParent());
+        try (Writer writer = Files.newBufferedWriter(DUMP_FILE, StandardCharsets.UTF_8)) {
+            GSON.toJson(toJson(), writer);
+        }
+        return DUMP_FILE;
+    }
+}
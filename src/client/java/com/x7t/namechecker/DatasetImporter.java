@@ -0,0 +1,381 @@
+package com.x7t.namechecker;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a name-history dump into the file {@link DatasetIndex} maps. Accepted input, optionally gzipped:
+ * NDJSON with one crafty profile per line (bare or wrapped in {@code data}), or CSV rows of
+ * {@code uuid,username,changed_at} with all rows of an account adjacent and an empty {@code changed_at} for the
+ * original name. Profiles are written to the output as they are read; their lookup keys are sorted in bounded runs
+ * on disk and merged at the end, so the heap holds one run at most whatever the size of the dump.
+ */
+public class DatasetImporter {
+    private static final int RUN_ENTRIES = 200_000;
+    private static final int PROGRESS_EVERY = 250_000;
+    private static final int MAX_KEY_BYTES = 0xFFFF;
+
+    public record Result(long profiles, long keys, long skipped, long bytes, long nanos) {}
+
+    private record KeyEntry(byte[] key, byte rank, long time, long record) {}
+
+    private record CsvRow(String name, long changedAt) {}
+
+    // Key order, then the best entry for a key first
+    private static final Comparator<KeyEntry> ORDER = ((Comparator<KeyEntry>) (a, b) -> Arrays.compareUnsigned(a.key(), b.key()))
+        .thenComparing(Comparator.comparingInt(KeyEntry::rank).reversed())
+        .thenComparing(Comparator.comparingLong(KeyEntry::time).reversed());
+
+    private final Path target;
+    private final LongConsumer progress;
+    private final List<KeyEntry> run = new ArrayList<>();
+    private final List<Path> runFiles = new ArrayList<>();
+    private DataOutputStream out;
+    private long position;
+    private long profiles;
+    private long skipped;
+
+    private DatasetImporter(Path target, LongConsumer progress) {
+        this.target = target;
+        this.progress = progress;
+    }
+
+    /**
+     * Imports {@code source} into {@code target}, reporting the profile count every few hundred thousand profiles.
+     * On failure the partial output and all temporary files are deleted.
+     */
+    public static Result run(Path source, Path target, LongConsumer progress) throws IOException {
+        return new DatasetImporter(target, progress).importFrom(source);
+    }
+
+    private Result importFrom(Path source) throws IOException {
+        long start = System.nanoTime();
+        Path offsetsFile = target.resolveSibling(target.getFileName() + ".offsets");
+        boolean complete = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024));
+            out.write(new byte[DatasetIndex.HEADER_BYTES]);
+            position = DatasetIndex.HEADER_BYTES;
+            try (BufferedReader reader = open(source)) {
+                String name = source.getFileName().toString().toLowerCase();
+                if (name.endsWith(".csv") || name.endsWith(".csv.gz")) {
+                    readCsv(reader);
+                } else {
+                    readNdjson(reader);
+                }
+            }
+            spillRun();
+
+            long keysStart = position;
+            long keys = mergeRuns(offsetsFile);
+            long offsetsStart = position;
+            out.close();
+            out = null;
+            long bytes = offsetsStart + keys * 8;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IOException("Dataset would exceed 2 GB");
+            }
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE);
+                 FileChannel offsets = FileChannel.open(offsetsFile, StandardOpenOption.READ)) {
+                long copied = 0;
+                while (copied < offsets.size()) {
+                    copied += offsets.transferTo(copied, offsets.size() - copied, channel.position(offsetsStart + copied));
+                }
+                ByteBuffer header = ByteBuffer.allocate(DatasetIndex.HEADER_BYTES);
+                header.putInt(0, DatasetIndex.MAGIC);
+                header.putShort(4, DatasetIndex.VERSION);
+                header.putLong(DatasetIndex.KEY_COUNT, keys);
+                header.putLong(DatasetIndex.KEYS_START, keysStart);
+                header.putLong(DatasetIndex.OFFSETS_START, offsetsStart);
+                header.putLong(DatasetIndex.IMPORTED_AT, System.currentTimeMillis());
+                header.putLong(DatasetIndex.PROFILES, profiles);
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            complete = true;
+            return new Result(profiles, keys, skipped, bytes, System.nanoTime() - start);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+            for (Path file : runFiles) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(offsetsFile);
+            if (!complete) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    private static BufferedReader open(Path source) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(source), 64 * 1024);
+        if (source.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private void readNdjson(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonElement element = JsonParser.parseString(line);
+                JsonObject object = element.isJsonObject() ? element.getAsJsonObject() : null;
+                if (object != null && object.has("data") && object.get("data").isJsonObject()) {
+                    object = object.getAsJsonObject("data");
+                }
+                PlayerProfile profile = object != null ? PlayerProfile.fromJson(object, null) : null;
+                if (profile == null || profile.username() == null && !profile.hasUuid()) {
+                    skipped++;
+                    continue;
+                }
+                add(profile);
+            } catch (RuntimeException e) {
+                // Malformed JSON, or a field of the wrong type or format
+                skipped++;
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader) throws IOException {
+        String account = null;
+        List<CsvRow> rows = new ArrayList<>();
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split(",", -1);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = unquote(fields[i].trim());
+            }
+            if (first) {
+                first = false;
+                if (fields[0].equalsIgnoreCase("uuid")) {
+                    continue;
+                }
+            }
+            String uuid = NameCache.normalizeUuid(fields[0]);
+            if (fields.length < 2 || uuid == null || fields[1].isEmpty()) {
+                if (!line.isBlank()) {
+                    skipped++;
+                }
+                continue;
+            }
+            CsvRow row;
+            try {
+                row = new CsvRow(fields[1], fields.length > 2 && !fields[2].isEmpty()
+                    ? PlayerProfile.parseTime(fields[2]) : PlayerProfile.UNKNOWN_TIME);
+            } catch (RuntimeException e) {
+                // A change date out of range
+                skipped++;
+                continue;
+            }
+            if (!uuid.equals(account)) {
+                addCsvAccount(account, rows);
+                account = uuid;
+                rows.clear();
+            }
+            rows.add(row);
+        }
+        addCsvAccount(account, rows);
+    }
+
+    private void addCsvAccount(String uuid, List<CsvRow> rows) throws IOException {
+        if (uuid == null || rows.isEmpty()) {
+            return;
+        }
+        int count = rows.size();
+        String[] names = new String[count];
+        long[] changed = new long[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = rows.get(i).name();
+            changed[i] = rows.get(i).changedAt();
+        }
+        // Newest first, the original name (no change date) last
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> changed[i]).reversed());
+        String[] sortedNames = new String[count];
+        long[] sortedChanged = new long[count];
+        for (int i = 0; i < count; i++) {
+            sortedNames[i] = names[order[i]];
+            sortedChanged[i] = changed[order[i]];
+        }
+        add(PlayerProfile.of(uuid, sortedNames[0], PlayerProfile.UNKNOWN_TIME, PlayerProfile.UNKNOWN_VIEWS,
+            sortedNames, sortedChanged, new byte[count]));
+    }
+
+    private static String unquote(String field) {
+        return field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")
+            ? field.substring(1, field.length() - 1).replace("\"\"", "\"") : field;
+    }
+
+    private void add(PlayerProfile profile) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream record = new DataOutputStream(bytes)) {
+            SnapshotCodec.writeProfile(record, profile);
+        }
+        long offset = position;
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        position += 4 + bytes.size();
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Dataset would exceed 2 GB");
+        }
+
+        long newest = profile.historySize() > 0 ? profile.changedAt(0) : PlayerProfile.UNKNOWN_TIME;
+        Set<String> keys = new HashSet<>();
+        if (profile.hasUuid()) {
+            addKey(keys, profile.uuid(), DatasetIndex.RANK_UUID, newest, offset);
+        }
+        if (profile.username() != null) {
+            addKey(keys, profile.username().toLowerCase(), DatasetIndex.RANK_CURRENT, newest, offset);
+        }
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (profile.historyName(i) != null) {
+                addKey(keys, profile.historyName(i).toLowerCase(), DatasetIndex.RANK_HISTORY, profile.changedAt(i), offset);
+            }
+        }
+        if (++profiles % PROGRESS_EVERY == 0) {
+            progress.accept(profiles);
+        }
+    }
+
+    private void addKey(Set<String> seen, String key, byte rank, long time, long record) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_KEY_BYTES || !seen.add(key)) {
+            return;
+        }
+        run.add(new KeyEntry(bytes, rank, time, record));
+        if (run.size() >= RUN_ENTRIES) {
+            spillRun();
+        }
+    }
+
+    private void spillRun() throws IOException {
+        if (run.isEmpty()) {
+            return;
+        }
+        run.sort(ORDER);
+        Path file = target.resolveSibling(target.getFileName() + ".run" + runFiles.size());
+        runFiles.add(file);
+        try (DataOutputStream runOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            runOut.writeInt(run.size());
+            for (KeyEntry entry : run) {
+                writeEntry(runOut, entry);
+            }
+        }
+        run.clear();
+    }
+
+    // k-way merge of the sorted runs into the key section; only the best entry per key is kept
+    private long mergeRuns(Path offsetsFile) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Comparator.comparing(RunReader::head, ORDER));
+        long keys = 0;
+        try (DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile), 64 * 1024))) {
+            for (Path file : runFiles) {
+                RunReader reader = new RunReader(file);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            byte[] previous = null;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                KeyEntry entry = reader.head();
+                if (previous == null || !Arrays.equals(previous, entry.key())) {
+                    offsets.writeLong(position);
+                    out.writeShort(entry.key().length);
+                    out.write(entry.key());
+                    out.writeLong(entry.record());
+                    out.writeByte(entry.rank());
+                    position += 2 + entry.key().length + 8 + 1;
+                    previous = entry.key();
+                    keys++;
+                }
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        return keys;
+    }
+
+    private static void writeEntry(DataOutputStream out, KeyEntry entry) throws IOException {
+        out.writeShort(entry.key().length);
+        out.write(entry.key());
+        out.writeByte(entry.rank());
+        out.writeLong(entry.time());
+        out.writeLong(entry.record());
+    }
+
+    private static final class RunReader {
+        private final DataInputStream in;
+        private int remaining;
+        private KeyEntry head;
+
+        RunReader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+            remaining = in.readInt();
+        }
+
+        KeyEntry head() {
+            return head;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            byte[] key = new byte[in.readUnsignedShort()];
+            in.readFully(key);
+            head = new KeyEntry(key, in.readByte(), in.readLong(), in.readLong());
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
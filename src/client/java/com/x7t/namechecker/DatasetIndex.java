@@ -0,0 +1,245 @@
+package com.x7t.namechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only lookup index over an imported name-history dump, written by {@link DatasetImporter}.
+ * Layout: a 64-byte header, the profile records, the lookup keys in unsigned UTF-8 byte order (each with its
+ * record offset and rank), and a table of key offsets. A lookup is a binary search over that table in the mapped file,
+ * so neither keys nor profiles occupy the heap until one is read.
+ * Each import writes a new {@code dataset-<time>.idx}; the newest is used and older ones are deleted once unmapped,
+ * since Windows refuses to replace a mapped file.
+ */
+public class DatasetIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+
+    static final int MAGIC = 0x58375453; // "X7TS"
+    static final short VERSION = 2;
+    // Keys without a rank byte; still read, with every match treated as a history match
+    static final short VERSION_NO_RANK = 1;
+    static final int HEADER_BYTES = 64;
+    // Header fields
+    static final int KEY_COUNT = 8;
+    static final int KEYS_START = 16;
+    static final int OFFSETS_START = 24;
+    static final int IMPORTED_AT = 32;
+    static final int PROFILES = 40;
+    // Key ranks: a UUID beats a current name, which beats a name in someone's history
+    static final byte RANK_HISTORY = 1;
+    static final byte RANK_CURRENT = 2;
+    static final byte RANK_UUID = 3;
+
+    private static final String PREFIX = "dataset-";
+    private static final String SUFFIX = ".idx";
+
+    private final Path dir;
+    private volatile Mapping mapping;
+
+    private record Mapping(FileChannel channel, MappedByteBuffer map, long keys, long offsetsStart,
+                           long importedAt, long profiles, boolean ranked) {}
+
+    public DatasetIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Maps the newest dataset file, if any; a damaged file is skipped and the index stays empty.
+     */
+    public synchronized void open() {
+        List<Path> files = datasetFiles();
+        if (files.isEmpty()) {
+            return;
+        }
+        Path newest = files.get(files.size() - 1);
+        try {
+            mapping = map(newest);
+            LOGGER.info("Imported dataset: {} profiles, {} keys", mapping.profiles(), mapping.keys());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Imported dataset {} unavailable: {}", newest.getFileName(), e.getMessage());
+        }
+        deleteOlderThan(newest);
+    }
+
+    public synchronized void close() {
+        Mapping current = mapping;
+        mapping = null;
+        if (current != null) {
+            try {
+                current.channel().close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Where the next import should write; {@link #replace} switches to it once complete.
+     */
+    public Path nextFile() {
+        return dir.resolve(PREFIX + System.currentTimeMillis() + SUFFIX);
+    }
+
+    /**
+     * Switches lookups to a newly written dataset file and drops the previous one.
+     */
+    public synchronized void replace(Path file) throws IOException {
+        Mapping next = map(file);
+        close();
+        mapping = next;
+        deleteOlderThan(file);
+    }
+
+    /**
+     * The profile stored under a UUID, a current name, or a name someone held in the dataset, in that order of
+     * preference, if the key matched with at least {@code minRank}: with {@link #RANK_CURRENT}, a name only found in
+     * someone's history is not an answer. Returned entries carry the import time as their timestamp.
+     */
+    public NameCache.CachedPlayer get(String nameOrKey, byte minRank) {
+        Mapping current = mapping;
+        if (current == null) {
+            return null;
+        }
+        String uuid = NameCache.normalizeUuid(nameOrKey);
+        byte[] key = (uuid != null ? uuid : nameOrKey.toLowerCase()).getBytes(StandardCharsets.UTF_8);
+        MappedByteBuffer map = current.map();
+        long low = 0;
+        long high = current.keys() - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int entry = (int) map.getLong((int) (current.offsetsStart() + mid * 8));
+            int order = compare(map, entry, key);
+            if (order < 0) {
+                low = mid + 1;
+            } else if (order > 0) {
+                high = mid - 1;
+            } else {
+                int length = map.getShort(entry) & 0xFFFF;
+                byte rank = current.ranked() ? map.get(entry + 2 + length + 8) : RANK_HISTORY;
+                return rank >= minRank ? read(current, (int) map.getLong(entry + 2 + length)) : null;
+            }
+        }
+        return null;
+    }
+
+    public long size() {
+        Mapping current = mapping;
+        return current != null ? current.profiles() : 0;
+    }
+
+    public long getKeyCount() {
+        Mapping current = mapping;
+        return current != null ? current.keys() : 0;
+    }
+
+    public long getFileBytes() {
+        Mapping current = mapping;
+        return current != null ? current.map().capacity() : 0;
+    }
+
+    public long getImportedAt() {
+        Mapping current = mapping;
+        return current != null ? current.importedAt() : 0;
+    }
+
+    // Unsigned byte order of the key stored at entry against key
+    private static int compare(MappedByteBuffer map, int entry, byte[] key) {
+        int length = map.getShort(entry) & 0xFFFF;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int order = Integer.compare(map.get(entry + 2 + i) & 0xFF, key[i] & 0xFF);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static NameCache.CachedPlayer read(Mapping current, int offset) {
+        int length = current.map().getInt(offset);
+        byte[] payload = new byte[length];
+        current.map().get(offset + 4, payload);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            PlayerProfile profile = SnapshotCodec.readProfile(in);
+            NameCache.CachedPlayer player = new NameCache.CachedPlayer(profile.username(), profile, false);
+            player.timestamp = current.importedAt();
+            player.volatileTimestamp = current.importedAt();
+            return player;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Unreadable dataset record at {}: {}", offset, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Mapping map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected dataset size " + size);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long keys = map.getLong(KEY_COUNT);
+            long offsetsStart = map.getLong(OFFSETS_START);
+            short version = map.getShort(4);
+            if (map.getInt(0) != MAGIC || version != VERSION && version != VERSION_NO_RANK || keys < 0
+                    || map.getLong(KEYS_START) < HEADER_BYTES || offsetsStart + keys * 8 != size) {
+                throw new IOException("Not a dataset index");
+            }
+            return new Mapping(channel, map, keys, offsetsStart, map.getLong(IMPORTED_AT), map.getLong(PROFILES),
+                version == VERSION);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Oldest first
+    private List<Path> datasetFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            LOGGER.warn("Could not list imported datasets: {}", e.getMessage());
+        }
+        files.sort((a, b) -> Long.compare(timeOf(a), timeOf(b)));
+        return files;
+    }
+
+    private static long timeOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void deleteOlderThan(Path keep) {
+        for (Path file : datasetFiles()) {
+            if (timeOf(file) < timeOf(keep)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Still mapped on Windows until collected; retried on the next start
+                    LOGGER.debug("Could not delete old dataset {}: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
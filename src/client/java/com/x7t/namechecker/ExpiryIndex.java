@@ -0,0 +1,80 @@
+package com.x7t.namechecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Write-time index for {@link NameCache} expiry.
+ * Every entry expires the same interval after it was written, so bucketing keys by write minute keeps
+ * them in deadline order. A sweep only visits the buckets that are due, and changing the expiry
+ * interval at runtime just moves the cutoff.
+ */
+public class ExpiryIndex {
+    public static final long BUCKET_MS = 60_000;
+
+    private final TreeMap<Long, Set<String>> buckets = new TreeMap<>();
+    private final Map<String, Long> bucketOf = new HashMap<>();
+
+    public synchronized void onWrite(String key, long timestamp) {
+        long bucket = Math.floorDiv(timestamp, BUCKET_MS);
+        Long previous = bucketOf.put(key, bucket);
+        if (previous != null) {
+            if (previous == bucket) {
+                return;
+            }
+            detach(key, previous);
+        }
+        buckets.computeIfAbsent(bucket, b -> new HashSet<>()).add(key);
+    }
+
+    public synchronized void onRemove(String key) {
+        Long bucket = bucketOf.remove(key);
+        if (bucket != null) {
+            detach(key, bucket);
+        }
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        bucketOf.clear();
+    }
+
+    /**
+     * Removes and returns the keys of every bucket that ends at or before {@code cutoff}.
+     * Entries in the bucket containing the cutoff wait for the next sweep, so removal is up to one bucket late.
+     */
+    public synchronized List<String> pollWrittenBefore(long cutoff) {
+        Map<Long, Set<String>> due = buckets.headMap(Math.floorDiv(cutoff, BUCKET_MS), false);
+        if (due.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        Iterator<Set<String>> it = due.values().iterator();
+        while (it.hasNext()) {
+            for (String key : it.next()) {
+                bucketOf.remove(key);
+                keys.add(key);
+            }
+            it.remove();
+        }
+        return keys;
+    }
+
+    public synchronized int size() {
+        return bucketOf.size();
+    }
+
+    private void detach(String key, long bucket) {
+        Set<String> keys = buckets.get(bucket);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            buckets.remove(bucket);
+        }
+    }
+}
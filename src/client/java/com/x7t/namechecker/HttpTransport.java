@@ -0,0 +1,172 @@
+package com.x7t.namechecker;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.fabricmc.loader.api.FabricLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shared HTTP transport for all upstream API calls.
+ * One {@link HttpClient} keeps connections alive per host and negotiates HTTP/2 where the API offers it,
+ * so repeated lookups skip DNS, TCP and TLS setup. Concurrent requests are capped per host, configured by
+ * {@code maxConnectionsPerHost} and per-host {@code hostLimits} in {@code http_config.json}.
+ */
+public class HttpTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+    private static final Gson GSON = new Gson();
+    private static final Path CONFIG_DIR = FabricLoader.getInstance().getConfigDir().resolve("x7tnamechecker");
+    private static final Path CONFIG_FILE = CONFIG_DIR.resolve("http_config.json");
+
+    public static final String USER_AGENT = "x7t-name-checker/1.0";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+
+    // Built on the first request so startup does not spin up the client's selector thread
+    private static final class Client {
+        static final HttpClient INSTANCE;
+        static {
+            INSTANCE = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(LookupExecutor.executor())
+                .build();
+            clientStarted = true;
+        }
+    }
+    private static volatile boolean clientStarted = false;
+
+    private static final Map<String, HostLimiter> HOST_LIMITERS = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> HOST_LIMIT_OVERRIDES = new ConcurrentHashMap<>();
+    private static volatile int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+
+    public static void init() {
+        LookupExecutor.executor().execute(HttpTransport::loadConfig);
+    }
+
+    public static void shutdown() {
+        if (clientStarted) {
+            Client.INSTANCE.shutdownNow();
+        }
+    }
+
+    public static HttpRequest.Builder newRequest(String url, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(url))
+            .GET()
+            .timeout(timeout)
+            .header("User-Agent", USER_AGENT)
+            .header("Accept", "application/json");
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        HostLimiter limiter = limiterFor(request.uri().getHost());
+        return limiter.acquire()
+            .thenCompose(v -> Client.INSTANCE.sendAsync(request, handler))
+            .whenComplete((response, error) -> limiter.release());
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException || error instanceof ExecutionException) {
+            if (error.getCause() == null) break;
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static int limitFor(String host) {
+        return HOST_LIMIT_OVERRIDES.getOrDefault(host, maxConnectionsPerHost);
+    }
+
+    private static HostLimiter limiterFor(String host) {
+        String key = host == null ? "" : host.toLowerCase();
+        return HOST_LIMITERS.computeIfAbsent(key, h -> new HostLimiter(limitFor(h)));
+    }
+
+    // Caps concurrent requests per host; waiters are completed in order instead of blocking a thread
+    private static final class HostLimiter {
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int permits;
+        private int inUse;
+
+        HostLimiter(int permits) {
+            this.permits = permits;
+        }
+
+        CompletableFuture<Void> acquire() {
+            synchronized (this) {
+                if (inUse < permits) {
+                    inUse++;
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+                return waiter;
+            }
+        }
+
+        void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = inUse <= permits ? waiters.poll() : null;
+                if (next == null) {
+                    inUse--;
+                }
+            }
+            if (next != null) {
+                next.complete(null);
+            }
+        }
+
+        void setPermits(int newPermits) {
+            ArrayDeque<CompletableFuture<Void>> woken = new ArrayDeque<>();
+            synchronized (this) {
+                permits = newPermits;
+                while (inUse < permits && !waiters.isEmpty()) {
+                    inUse++;
+                    woken.add(waiters.poll());
+                }
+            }
+            woken.forEach(w -> w.complete(null));
+        }
+    }
+
+    private static void loadConfig() {
+        if (!Files.exists(CONFIG_FILE)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(CONFIG_FILE)) {
+            JsonObject config = GSON.fromJson(reader, JsonObject.class);
+            if (config != null) {
+                if (config.has("maxConnectionsPerHost")) {
+                    maxConnectionsPerHost = Math.max(1, Math.min(64, config.get("maxConnectionsPerHost").getAsInt()));
+                }
+                if (config.has("hostLimits") && config.get("hostLimits").isJsonObject()) {
+                    for (Map.Entry<String, JsonElement> entry : config.getAsJsonObject("hostLimits").entrySet()) {
+                        HOST_LIMIT_OVERRIDES.put(entry.getKey().toLowerCase(), Math.max(1, Math.min(64, entry.getValue().getAsInt())));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to load http config: {}", e.getMessage());
+        }
+        // Limiters created by requests that raced the background load pick up the configured limits
+        HOST_LIMITERS.forEach((host, limiter) -> limiter.setPermits(limitFor(host)));
+    }
+}
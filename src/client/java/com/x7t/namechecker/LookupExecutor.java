@@ -0,0 +1,74 @@
+package com.x7t.namechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mod-owned executor for all network work: one named virtual thread per task, so blocking lookups
+ * never run on {@code ForkJoinPool.commonPool()} which the game and other mods share.
+ * {@link #submit} admits a bounded number of pending lookups and rejects the rest.
+ */
+public class LookupExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+    private static final int MAX_PENDING = 64;
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("x7t-lookup-", 0).factory());
+    private static final Semaphore ADMISSION = new Semaphore(MAX_PENDING);
+
+    /**
+     * Unbounded executor for internal continuations (HTTP callbacks, delayed retries).
+     */
+    public static Executor executor() {
+        return EXECUTOR;
+    }
+
+    public static CompletableFuture<Void> submit(Runnable task) {
+        if (!ADMISSION.tryAcquire()) {
+            throw new RejectedExecutionException("Lookup queue is full");
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    task.run();
+                } finally {
+                    ADMISSION.release();
+                }
+            }, EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            ADMISSION.release();
+            throw e;
+        }
+    }
+
+    public static Executor delayed(long delayMs) {
+        return CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, EXECUTOR);
+    }
+
+    public static int getPendingCount() {
+        return MAX_PENDING - ADMISSION.availablePermits();
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(5, TimeUnit.SECONDS)) {
+                EXECUTOR.shutdownNow();
+                if (!EXECUTOR.awaitTermination(2, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Lookup executor did not terminate");
+                }
+            }
+        } catch (InterruptedException e) {
+            EXECUTOR.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package com.x7t.namechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap second tier behind {@link NameCache}. Profiles leaving the heap are appended to a memory-mapped
+ * data file; a memory-mapped open-addressing table maps 64-bit hashes of each entry's key and names to record
+ * offsets, so neither the records nor the index occupy the Java heap.
+ * Removed records are only flagged dead. Space is reclaimed by sliding live records down in place, never by
+ * replacing the file, which Windows refuses while it is mapped.
+ * The files are owned by one process at a time (a lock file next to them); other game instances run without the tier.
+ * <p>
+ * Writers take a {@link StampedLock} exclusively and compaction always runs on the lookup executor. {@link #get} reads
+ * optimistically and never waits: a lookup that overlaps a write is retried once and otherwise answered as a miss.
+ */
+public class MappedProfileStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+
+    private static final int DATA_MAGIC = 0x58375444; // "X7TD"
+    private static final int INDEX_MAGIC = 0x58375449; // "X7TI"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    // Record: int payload length, status byte, payload
+    private static final int RECORD_OVERHEAD = 5;
+    private static final byte LIVE = 1;
+    private static final byte DEAD = 2;
+    private static final long TOMBSTONE = -1;
+    // Match ranks for get: a name only in someone's history, or the entry's key or current name
+    public static final int RANK_HISTORY = 0;
+    public static final int RANK_CURRENT = 1;
+
+    private static final long INITIAL_DATA_BYTES = 4L * 1024 * 1024;
+    private static final long MAX_DATA_BYTES = 512L * 1024 * 1024;
+    private static final int INITIAL_SLOTS = 1 << 15;
+    private static final double MAX_LOAD = 0.7;
+    private static final long COMPACT_MIN_DEAD_BYTES = 8L * 1024 * 1024;
+
+    // Header fields
+    private static final int DATA_END = 8;
+    private static final int DATA_LIVE = 16;
+    private static final int DATA_DEAD = 24;
+    private static final int INDEX_SLOTS = 8;
+    private static final int INDEX_USED = 12;
+    private static final int INDEX_LIVE = 16;
+    private static final int INDEX_DATA_END = 24;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final Path lockFile;
+    private final AtomicBoolean compactPending = new AtomicBoolean(false);
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder busyMisses = new LongAdder();
+    private FileChannel lockChannel;
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+    private MappedByteBuffer data;
+    private MappedByteBuffer index;
+    // Volatile for the lock-free getters
+    private volatile boolean open;
+    private boolean fullWarned;
+    private volatile long end;
+    private volatile long liveRecords;
+    private long deadBytes;
+    private int slots;
+    private int usedSlots;
+    private int liveSlots;
+
+    public record Entry(String key, NameCache.CachedPlayer player, long offset) {}
+
+    public MappedProfileStore(Path dataFile, Path indexFile) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.lockFile = dataFile.resolveSibling(dataFile.getFileName() + ".lock");
+    }
+
+    /**
+     * Maps both files, creating them if needed; a missing or inconsistent index is rebuilt from the data file.
+     * On failure the store stays closed and every operation is a no-op.
+     */
+    public void open() {
+        long stamp = lock.writeLock();
+        try {
+            lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (lockChannel.tryLock() == null) {
+                LOGGER.info("Off-heap cache is in use by another game instance, running without it");
+                closeChannels();
+                return;
+            }
+            dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long existing = dataChannel.size();
+            data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(MAX_DATA_BYTES, Math.max(INITIAL_DATA_BYTES, existing)));
+            if (existing < HEADER_BYTES || data.getInt(0) != DATA_MAGIC || data.getShort(4) != VERSION
+                    || data.getLong(DATA_END) < HEADER_BYTES || data.getLong(DATA_END) > data.capacity()) {
+                resetData();
+            } else {
+                end = data.getLong(DATA_END);
+                liveRecords = data.getLong(DATA_LIVE);
+                deadBytes = data.getLong(DATA_DEAD);
+            }
+
+            long indexSize = indexChannel.size();
+            boolean indexValid = false;
+            if (indexSize >= HEADER_BYTES) {
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+                int storedSlots = index.getInt(INDEX_SLOTS);
+                indexValid = index.getInt(0) == INDEX_MAGIC && index.getShort(4) == VERSION
+                    && storedSlots > 0 && Integer.bitCount(storedSlots) == 1
+                    && indexSize >= HEADER_BYTES + (long) storedSlots * SLOT_BYTES
+                    && index.getLong(INDEX_DATA_END) == end;
+                if (indexValid) {
+                    slots = storedSlots;
+                    usedSlots = index.getInt(INDEX_USED);
+                    liveSlots = index.getInt(INDEX_LIVE);
+                }
+            }
+            if (!indexValid) {
+                rebuildIndex(Math.max(INITIAL_SLOTS, slots));
+            }
+            open = true;
+            LOGGER.info("Off-heap cache: {} entries, {} KB", liveRecords, end / 1024);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Off-heap cache unavailable: {}", e.getMessage());
+            closeChannels();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            data.force();
+            index.force();
+            closeChannels();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores {@code player} under {@code key}, replacing any older record for the same key.
+     * Returns {@code false} when the store is closed or full.
+     */
+    public boolean put(String key, NameCache.CachedPlayer player) {
+        byte[] payload;
+        try {
+            payload = encode(key, player);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to encode off-heap cache entry: {}", e.getMessage());
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (!open) {
+                return false;
+            }
+            removeKey(key);
+            if (end + RECORD_OVERHEAD + payload.length > data.capacity() && !grow(RECORD_OVERHEAD + payload.length)) {
+                return false;
+            }
+            int offset = (int) end;
+            data.putInt(offset, payload.length);
+            data.put(offset + 4, LIVE);
+            data.put(offset + RECORD_OVERHEAD, payload);
+            end = offset + RECORD_OVERHEAD + payload.length;
+            liveRecords++;
+            writeDataHeader();
+            for (String name : indexKeys(key, player)) {
+                insertSlot(hash(name), offset);
+            }
+            if (usedSlots > slots * MAX_LOAD) {
+                rebuildIndex(liveSlots > slots * MAX_LOAD / 2 ? slots * 2 : slots);
+            } else {
+                writeIndexHeader();
+            }
+            if (deadBytes > COMPACT_MIN_DEAD_BYTES && deadBytes > end / 2) {
+                scheduleCompact();
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write off-heap cache entry: {}", e.getMessage());
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * The newest live record for a key (UUID or lowercase name) or a name it held; a current name wins over history.
+     * With {@link #RANK_CURRENT}, records that only list the name in their history are not matched.
+     */
+    public Entry get(String nameOrKey, int minRank) {
+        String lower = nameOrKey.toLowerCase();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                break;
+            }
+            Entry entry;
+            try {
+                entry = find(lower, minRank);
+            } catch (RuntimeException e) {
+                // Torn read of a record or table being rewritten; discarded by validate below
+                entry = null;
+            }
+            if (lock.validate(stamp)) {
+                return entry;
+            }
+        }
+        busyMisses.increment();
+        return null;
+    }
+
+    private Entry find(String lower, int minRank) {
+        if (!open) {
+            return null;
+        }
+        Entry best = null;
+        int bestRank = -1;
+        for (long offset : candidates(hash(lower))) {
+            Entry entry = read(offset);
+            if (entry == null) {
+                continue;
+            }
+            // Hash collisions are filtered out here
+            int rank = entry.key().equals(lower) || lower.equalsIgnoreCase(entry.player().name) ? RANK_CURRENT
+                : holdsName(entry.player(), lower) ? RANK_HISTORY : -1;
+            if (rank < minRank) {
+                continue;
+            }
+            if (best == null || rank > bestRank || (rank == bestRank && entry.player().timestamp > best.player().timestamp)) {
+                best = entry;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Drops the record returned by {@link #get}, unless it has been replaced since. Skipped without waiting while
+     * another write holds the store; the record then stays until the key is stored again.
+     */
+    public void remove(Entry entry) {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0) {
+            return;
+        }
+        try {
+            // A compaction since the read may have moved another record to this offset
+            Entry current = open ? read(entry.offset()) : null;
+            if (current != null && current.key().equals(entry.key())) {
+                markDead((int) entry.offset(), entry.key(), entry.player());
+                writeDataHeader();
+                writeIndexHeader();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            if (!open) {
+                return;
+            }
+            resetData();
+            rebuildIndex(INITIAL_SLOTS);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long size() {
+        return liveRecords;
+    }
+
+    public long getFileBytes() {
+        return open ? end : 0;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    // Lookups answered as misses because a write or compaction held the store
+    public long getBusyMisses() {
+        return busyMisses.sum();
+    }
+
+    private void scheduleCompact() {
+        if (compactPending.compareAndSet(false, true)) {
+            try {
+                LookupExecutor.executor().execute(this::compact);
+            } catch (RejectedExecutionException e) {
+                compactPending.set(false);
+            }
+        }
+    }
+
+    // Slides live records towards the start of the file and reindexes them
+    private void compact() {
+        long stamp = lock.writeLock();
+        try {
+            compactLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void compactLocked() {
+        compactPending.set(false);
+        if (!open) {
+            return;
+        }
+        long start = System.nanoTime();
+        long before = end;
+        int read = HEADER_BYTES;
+        int write = HEADER_BYTES;
+        while (read < end) {
+            int size = RECORD_OVERHEAD + data.getInt(read);
+            if (data.get(read + 4) == LIVE) {
+                if (read != write) {
+                    byte[] record = new byte[size];
+                    data.get(read, record);
+                    data.put(write, record);
+                }
+                write += size;
+            }
+            read += size;
+        }
+        end = write;
+        deadBytes = 0;
+        writeDataHeader();
+        rebuildIndex(slots);
+        data.force();
+        LOGGER.info("Compacted off-heap cache from {} KB to {} KB in {} ms",
+            before / 1024, end / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private boolean grow(int recordSize) throws IOException {
+        long required = end + recordSize;
+        if (required > MAX_DATA_BYTES) {
+            if (deadBytes > 0) {
+                // Reclaimed off-thread; this entry is dropped rather than waiting for it
+                scheduleCompact();
+                return false;
+            }
+            if (!fullWarned) {
+                fullWarned = true;
+                LOGGER.warn("Off-heap cache is full ({} MB), evicted entries are dropped", MAX_DATA_BYTES / (1024 * 1024));
+            }
+            return false;
+        }
+        long capacity = Math.min(MAX_DATA_BYTES, Math.max(required, (long) data.capacity() * 2));
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return true;
+    }
+
+    private void removeKey(String key) {
+        for (long offset : candidates(hash(key))) {
+            Entry entry = read(offset);
+            if (entry != null && entry.key().equals(key)) {
+                markDead((int) offset, entry.key(), entry.player());
+            }
+        }
+    }
+
+    private void markDead(int offset, String key, NameCache.CachedPlayer player) {
+        data.put(offset + 4, DEAD);
+        liveRecords--;
+        deadBytes += RECORD_OVERHEAD + data.getInt(offset);
+        for (String name : indexKeys(key, player)) {
+            long hash = hash(name);
+            int mask = slots - 1;
+            for (int i = slotOf(hash); ; i = (i + 1) & mask) {
+                int position = HEADER_BYTES + i * SLOT_BYTES;
+                long slotHash = index.getLong(position);
+                if (slotHash == 0) {
+                    break;
+                }
+                if (slotHash == hash && index.getLong(position + 8) == offset) {
+                    index.putLong(position + 8, TOMBSTONE);
+                    liveSlots--;
+                    break;
+                }
+            }
+        }
+    }
+
+    private List<Long> candidates(long hash) {
+        List<Long> offsets = new ArrayList<>(2);
+        int mask = slots - 1;
+        for (int i = slotOf(hash); ; i = (i + 1) & mask) {
+            int position = HEADER_BYTES + i * SLOT_BYTES;
+            long slotHash = index.getLong(position);
+            if (slotHash == 0) {
+                return offsets;
+            }
+            long offset = index.getLong(position + 8);
+            if (slotHash == hash && offset != TOMBSTONE && !offsets.contains(offset)) {
+                offsets.add(offset);
+            }
+        }
+    }
+
+    private void insertSlot(long hash, int offset) {
+        int mask = slots - 1;
+        for (int i = slotOf(hash); ; i = (i + 1) & mask) {
+            int position = HEADER_BYTES + i * SLOT_BYTES;
+            long slotHash = index.getLong(position);
+            if (slotHash == 0 || index.getLong(position + 8) == TOMBSTONE) {
+                if (slotHash == 0) {
+                    usedSlots++;
+                }
+                index.putLong(position, hash);
+                index.putLong(position + 8, offset);
+                liveSlots++;
+                return;
+            }
+        }
+    }
+
+    // Zeroes the table and re-inserts every live record; also truncates a torn tail left by a crash
+    private void rebuildIndex(int newSlots) {
+        try {
+            long size = HEADER_BYTES + (long) newSlots * SLOT_BYTES;
+            if (index == null || index.capacity() < size) {
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            byte[] zeros = new byte[64 * 1024];
+            for (int position = 0; position < size; position += zeros.length) {
+                index.put(position, zeros, 0, (int) Math.min(zeros.length, size - position));
+            }
+            slots = newSlots;
+            usedSlots = 0;
+            liveSlots = 0;
+
+            long live = 0;
+            int offset = HEADER_BYTES;
+            while (offset + RECORD_OVERHEAD <= end) {
+                int length = data.getInt(offset);
+                byte status = data.get(offset + 4);
+                if (length <= 0 || offset + RECORD_OVERHEAD + (long) length > end || (status != LIVE && status != DEAD)) {
+                    LOGGER.warn("Off-heap cache truncated at damaged record ({} KB)", offset / 1024);
+                    end = offset;
+                    break;
+                }
+                if (status == LIVE) {
+                    Entry entry = read(offset);
+                    if (entry != null) {
+                        for (String name : indexKeys(entry.key(), entry.player())) {
+                            insertSlot(hash(name), offset);
+                        }
+                        live++;
+                        if (usedSlots > newSlots * MAX_LOAD) {
+                            rebuildIndex(newSlots * 2);
+                            return;
+                        }
+                    }
+                }
+                offset += RECORD_OVERHEAD + length;
+            }
+            liveRecords = live;
+            writeDataHeader();
+            index.putInt(0, INDEX_MAGIC);
+            index.putShort(4, VERSION);
+            index.putInt(INDEX_SLOTS, slots);
+            writeIndexHeader();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map off-heap cache index", e);
+        }
+    }
+
+    private void resetData() {
+        data.put(0, new byte[HEADER_BYTES]);
+        data.putInt(0, DATA_MAGIC);
+        data.putShort(4, VERSION);
+        end = HEADER_BYTES;
+        liveRecords = 0;
+        deadBytes = 0;
+        fullWarned = false;
+        writeDataHeader();
+    }
+
+    private void writeDataHeader() {
+        data.putLong(DATA_END, end);
+        data.putLong(DATA_LIVE, liveRecords);
+        data.putLong(DATA_DEAD, deadBytes);
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(INDEX_USED, usedSlots);
+        index.putInt(INDEX_LIVE, liveSlots);
+        index.putLong(INDEX_DATA_END, end);
+    }
+
+    private Entry read(long offset) {
+        int position = (int) offset;
+        if (offset < HEADER_BYTES || offset + RECORD_OVERHEAD > end || data.get(position + 4) != LIVE) {
+            return null;
+        }
+        int length = data.getInt(position);
+        if (length <= 0 || offset + RECORD_OVERHEAD + length > end) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        data.get(position + RECORD_OVERHEAD, payload);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String key = SnapshotCodec.readString(in);
+            String name = SnapshotCodec.readString(in);
+            long timestamp = in.readLong();
+            boolean available = in.readBoolean();
+            NameCache.CachedPlayer player = new NameCache.CachedPlayer(name, SnapshotCodec.readProfile(in), available);
+            player.timestamp = timestamp;
+            // Only the profile time is stored here; the volatile fields count as just as old
+            player.volatileTimestamp = timestamp;
+            return new Entry(key, player, offset);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Unreadable off-heap cache record at {}: {}", offset, e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] encode(String key, NameCache.CachedPlayer player) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SnapshotCodec.writeString(out, key);
+            SnapshotCodec.writeString(out, player.name);
+            out.writeLong(player.timestamp);
+            out.writeBoolean(player.available);
+            SnapshotCodec.writeProfile(out, player.profile);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Set<String> indexKeys(String key, NameCache.CachedPlayer player) {
+        Set<String> keys = new HashSet<>();
+        keys.add(key);
+        if (player.name != null) {
+            keys.add(player.name.toLowerCase());
+        }
+        PlayerProfile profile = player.profile;
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (profile.historyName(i) != null) {
+                keys.add(profile.historyName(i).toLowerCase());
+            }
+        }
+        return keys;
+    }
+
+    private static boolean holdsName(NameCache.CachedPlayer player, String lower) {
+        PlayerProfile profile = player.profile;
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (lower.equalsIgnoreCase(profile.historyName(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // FNV-1a; 0 marks an empty slot
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (slots - 1);
+    }
+
+    private void closeChannels() {
+        try {
+            if (dataChannel != null) dataChannel.close();
+            if (indexChannel != null) indexChannel.close();
+            // Releases the ownership lock
+            if (lockChannel != null) lockChannel.close();
+        } catch (IOException ignored) {
+        }
+        dataChannel = null;
+        indexChannel = null;
+        lockChannel = null;
+        data = null;
+        index = null;
+    }
+}
@@ -0,0 +1,221 @@
+package com.x7t.namechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Upstream API calls shared by commands and the watchlist.
+ * Every endpoint goes through a {@link SingleFlight} so concurrent lookups of the same name share one request.
+ */
+public class NameApi {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+
+    private static final String CRAFTY_API = "https://api.crafty.gg/api/v2/players/";
+    private static final String ASHCON_API = "https://api.ashcon.app/mojang/v2/user/";
+    private static final String GEYSER_API = "https://api.geysermc.org/v2/xbox/xuid/";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration BEDROCK_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    // Start at the old fixed cooldowns (1.5s / 2s / 1s) and let AIMD find the real limit
+    private static final RateLimiter CRAFTY_LIMIT = new RateLimiter("crafty", 1 / 1.5, 4, 2);
+    private static final RateLimiter ASHCON_LIMIT = new RateLimiter("ashcon", 1 / 2.0, 3, 2);
+    private static final RateLimiter GEYSER_LIMIT = new RateLimiter("geyser", 1.0, 5, 3);
+
+    private static final SingleFlight<ProfileResponse> CRAFTY_FLIGHTS = new SingleFlight<>("crafty");
+    private static final SingleFlight<Availability> ASHCON_FLIGHTS = new SingleFlight<>("ashcon");
+    private static final SingleFlight<String> GEYSER_FLIGHTS = new SingleFlight<>("geyser");
+
+    public static class Availability {
+        public final int statusCode;
+        public final String owner;
+
+        public Availability(int statusCode, String owner) {
+            this.statusCode = statusCode;
+            this.owner = owner;
+        }
+
+        // Result derived from cached data rather than an ashcon response
+        public static Availability of(boolean available, String owner) {
+            return new Availability(available ? 404 : 200, owner);
+        }
+
+        public boolean isAvailable() {
+            return statusCode == 404 || statusCode == 204;
+        }
+
+        public boolean isTaken() {
+            return statusCode == 200;
+        }
+    }
+
+    public static class ProfileResponse {
+        public final boolean success;
+        public final String message;
+        public final PlayerProfile profile;
+        public final int statusCode;
+
+        public ProfileResponse(boolean success, String message, PlayerProfile profile) {
+            this(success, message, profile, 200);
+        }
+
+        public ProfileResponse(boolean success, String message, PlayerProfile profile, int statusCode) {
+            this.success = success;
+            this.message = message;
+            this.profile = profile;
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * The API answered that the player does not exist, as opposed to a transport, rate-limit or server error.
+         */
+        public boolean isNotFound() {
+            if (success) {
+                return profile == null;
+            }
+            if (statusCode == 404 || statusCode == 400) {
+                return true;
+            }
+            return statusCode < 500 && statusCode != 429
+                && message != null && message.toLowerCase().contains("not found");
+        }
+    }
+
+    /**
+     * Decoded crafty profile for a name or UUID, or {@code null} when the API could not be reached.
+     */
+    public static CompletableFuture<ProfileResponse> fetchProfile(String nameOrUuid) {
+        return CRAFTY_FLIGHTS.execute(nameOrUuid, () -> fetchWithRetry(CRAFTY_API + nameOrUuid, 1));
+    }
+
+    /**
+     * Asks ashcon whether a name is taken; definitive results are stored in {@link AvailabilityCache}.
+     */
+    public static CompletableFuture<Availability> fetchAvailability(String name) {
+        return ASHCON_FLIGHTS.execute(name, () -> send(ASHCON_LIMIT, ASHCON_API + name, REQUEST_TIMEOUT, HttpResponse.BodyHandlers.ofInputStream(), 1)
+            .thenApply(response -> {
+                String owner = null;
+                try (InputStream in = response.body()) {
+                    if (response.statusCode() == 200) {
+                        owner = ProfileDecoder.decodeUsername(in);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    LOGGER.debug("Could not decode ashcon profile for {}: {}", name, e.getMessage());
+                }
+                Availability availability = new Availability(response.statusCode(), owner);
+                AvailabilityCache.put(name, availability);
+                return availability;
+            }));
+    }
+
+    /**
+     * XUID for a gamertag, or {@code null} when the account was not found or the API is unavailable.
+     */
+    public static CompletableFuture<String> fetchXuid(String gamertag) {
+        String url = GEYSER_API + URLEncoder.encode(gamertag, StandardCharsets.UTF_8);
+        return GEYSER_FLIGHTS.execute(gamertag, () -> send(GEYSER_LIMIT, url, BEDROCK_TIMEOUT, HttpResponse.BodyHandlers.ofString(), 1)
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    return null;
+                }
+                String xuid = response.body().replace("\"", "").trim();
+                return xuid.isEmpty() || xuid.equals("null") ? null : xuid;
+            })
+            .exceptionally(e -> {
+                LOGGER.debug("Bedrock API call failed: {}", HttpTransport.unwrap(e).getMessage());
+                return null;
+            }));
+    }
+
+    private static CompletableFuture<ProfileResponse> fetchWithRetry(String url, int attempt) {
+        return send(CRAFTY_LIMIT, url, REQUEST_TIMEOUT, HttpResponse.BodyHandlers.ofInputStream(), 1)
+            .thenApply(NameApi::decodeProfile)
+            .handle((profile, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(profile);
+                }
+                if (attempt >= MAX_RETRIES) {
+                    LOGGER.debug("Request to {} failed after {} attempts: {}", url, attempt, HttpTransport.unwrap(error).getMessage());
+                    return CompletableFuture.<ProfileResponse>completedFuture(null);
+                }
+                return CompletableFuture.runAsync(() -> {}, LookupExecutor.delayed(RETRY_DELAY_MS * attempt)).thenCompose(v -> fetchWithRetry(url, attempt + 1));
+            })
+            .thenCompose(f -> f);
+    }
+
+    // Waits for a token, reports the response back to the limiter and retries once throttling has passed
+    private static <T> CompletableFuture<HttpResponse<T>> send(RateLimiter limiter, String url, Duration timeout,
+                                                               HttpResponse.BodyHandler<T> handler, int attempt) {
+        HttpRequest request = HttpTransport.newRequest(url, timeout).build();
+        return limiter.acquire()
+            .thenCompose(v -> HttpTransport.sendAsync(request, handler))
+            .thenCompose(response -> {
+                limiter.onResponse(response);
+                if (response.statusCode() == 429 && attempt < MAX_RETRIES) {
+                    closeQuietly(response.body());
+                    return send(limiter, url, timeout, handler, attempt + 1);
+                }
+                return CompletableFuture.completedFuture(response);
+            });
+    }
+
+    // Error responses are decoded too (crafty reports "Player not found" that way); unreadable ones become a synthetic message
+    private static ProfileResponse decodeProfile(HttpResponse<InputStream> response) {
+        try (InputStream in = response.body()) {
+            return ProfileDecoder.decodeProfile(in, response.statusCode());
+        } catch (IOException | IllegalStateException e) {
+            if (response.statusCode() == 200) {
+                throw new UncheckedIOException(e instanceof IOException io ? io : new IOException(e));
+            }
+            return new ProfileResponse(false, "HTTP " + response.statusCode(), null, response.statusCode());
+        }
+    }
+
+    private static void closeQuietly(Object body) {
+        if (body instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    public static List<SingleFlight<?>> getFlights() {
+        return List.of(CRAFTY_FLIGHTS, ASHCON_FLIGHTS, GEYSER_FLIGHTS);
+    }
+
+    public static String getRateStats() {
+        StringBuilder sb = new StringBuilder();
+        for (RateLimiter limiter : List.of(CRAFTY_LIMIT, ASHCON_LIMIT, GEYSER_LIMIT)) {
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format("%s %.2f/s", limiter.getName(), limiter.getRate()));
+            if (limiter.getQueueLength() > 0) {
+                sb.append(" (").append(limiter.getQueueLength()).append(" queued)");
+            }
+        }
+        return sb.toString();
+    }
+
+    public static String getFlightStats() {
+        long hits = 0, joins = 0, misses = 0;
+        for (SingleFlight<?> flight : getFlights()) {
+            hits += flight.getHits();
+            joins += flight.getJoins();
+            misses += flight.getMisses();
+        }
+        return String.format("Hits: %d | Joins: %d | Misses: %d", hits, joins, misses);
+    }
+}
@@ -3,97 +3,293 @@ package com.x7t.namechecker;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import net.fabricmc.loader.api.FabricLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.lang.reflect.Type;
+import java.lang.ref.Cleaner;
+import java.lang.ref.SoftReference;
 import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 public class NameCache {
     private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Path CACHE_DIR = FabricLoader.getInstance().getConfigDir().resolve("x7tnamechecker");
-    private static final Path CACHE_FILE = CACHE_DIR.resolve("cache.json");
+    private static final Path CACHE_FILE = CACHE_DIR.resolve("cache.bin");
+    private static final Path LEGACY_CACHE_FILE = CACHE_DIR.resolve("cache.json");
+    private static final Path JOURNAL_FILE = CACHE_DIR.resolve("cache.journal");
+    // Shared by all game instances using this config directory
+    private static final Path LOCK_FILE = CACHE_DIR.resolve("cache.lock");
     private static final Path CONFIG_FILE = CACHE_DIR.resolve("cache_config.json");
     
+    // One entry per account, keyed by UUID (lowercase, dashed); entries without a UUID fall back to the lowercase name
     private static final Map<String, CachedPlayer> playerCache = new ConcurrentHashMap<>();
+    // Lowercase name -> primary key, built from each profile's current name and usernames[] history
+    private static final Map<String, Alias> aliases = new ConcurrentHashMap<>();
+    // Watched lowercase name -> primary keys it pinned; guarded by the policy lock
+    private static final Map<String, Set<String>> pinnedNames = new HashMap<>();
+    // Historical name -> who held it when
+    private static final NameHistoryIndex history = new NameHistoryIndex();
+    // Trigrams of every name in cached profiles, for /namecheck search
+    private static final TrigramIndex search = new TrigramIndex();
+    private static volatile boolean rekeyedOnLoad = false;
     
     // Konfigurierbare Werte (Nr. 9)
+    // Identity, name history and view counts live for historyExpiryMinutes (views only come with a full profile fetch);
+    // availability flags of past names expire after cacheExpiryMinutes and are re-checked on their own
     private static long cacheExpiryMinutes = 30;
+    private static long historyExpiryMinutes = 7 * 24 * 60;
     private static long getCacheExpiryMs() { return cacheExpiryMinutes * 60 * 1000; }
+    private static long getHistoryExpiryMs() { return historyExpiryMinutes * 60 * 1000; }
+    private static long getStaleGraceMs() { return (long) (getHistoryExpiryMs() * STALE_GRACE_RATIO); }
+    
+    // Bounded size with frequency-aware eviction
+    private static final long DEFAULT_MAX_ENTRIES = 5000;
+    private static final long DEFAULT_MAX_WEIGHT_BYTES = 32L * 1024 * 1024;
+    private static long maxEntries = DEFAULT_MAX_ENTRIES;
+    private static long maxWeightBytes = DEFAULT_MAX_WEIGHT_BYTES;
+    private static final CachePolicy policy = new CachePolicy(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT_BYTES);
+    // Entries ordered by write time, so cleanup only touches what is due
+    private static final ExpiryIndex expiry = new ExpiryIndex();
+    
+    // Off-heap second tier: entries leaving the heap stay available there and move back when read
+    private static final MappedProfileStore offHeap = new MappedProfileStore(CACHE_DIR.resolve("cache.tier2"), CACHE_DIR.resolve("cache.tier2.idx"));
+    private static final LongAdder promotions = new LongAdder();
+    // Read-only index over an imported name-history dump, consulted when both tiers miss
+    private static final DatasetIndex dataset = new DatasetIndex(CACHE_DIR);
+    private static final LongAdder datasetHits = new LongAdder();
+    private static final AtomicBoolean importing = new AtomicBoolean(false);
+    // Swept out of the heap tier after the stale grace period
+    private static final LongAdder expired = new LongAdder();
+    // When the GC starts clearing soft references and the heap is still this full, this share of the heap tier moves off-heap
+    private static final double PRESSURE_THRESHOLD = 0.85;
+    private static final double PRESSURE_SHED_RATIO = 0.25;
+    private static final Cleaner pressureCleaner = Cleaner.create(r -> {
+        Thread t = new Thread(r, "x7t-memory-pressure");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile SoftReference<Object> pressureSentinel;
+    
+    // Stale-while-revalidate: expired entries are still served for this share of their lifetime while a refresh runs
+    private static final double STALE_GRACE_RATIO = 0.25;
+    // Refresh-ahead: entries read this often get refreshed once this share of their lifetime has passed
+    private static final int REFRESH_AHEAD_MIN_READS = 3;
+    private static final double REFRESH_AHEAD_RATIO = 0.75;
+    private static final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private static volatile Function<String, CompletableFuture<?>> refresher;
+    private static final LongAdder staleHits = new LongAdder();
+    private static final LongAdder refreshCount = new LongAdder();
+    // Partial refresh of volatile fields: only the availability of historical names is re-checked
+    private static final int MAX_AVAILABILITY_RECHECKS = 8;
+    private static final long VOLATILE_RETRY_MS = 60 * 1000;
+    private static final Set<String> refreshingVolatile = ConcurrentHashMap.newKeySet();
+    private static volatile Function<String, CompletableFuture<Boolean>> availabilityChecker;
+    private static final LongAdder partialRefreshes = new LongAdder();
+    
+    // Negative cache: names the API reported as nonexistent; short-lived and not persisted
+    private static final long NEGATIVE_TTL_MS = 5 * 60 * 1000;
+    private static final int MAX_NEGATIVE_ENTRIES = 1000;
+    private static final Map<String, Long> notFound = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NEGATIVE_ENTRIES;
+        }
+    });
+    private static final LongAdder negativeHits = new LongAdder();
     
     // Cache-Statistiken (Nr. 8)
-    private static final AtomicLong cacheHits = new AtomicLong(0);
-    private static final AtomicLong cacheMisses = new AtomicLong(0);
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
     
-    // Debounced Save (Nr. 1)
-    private static ScheduledExecutorService saveScheduler;
+    // Debounced Save (Nr. 1): changes are appended to a journal, compacted into the snapshot in the background
+    private static volatile ScheduledExecutorService saveScheduler;
+    private static volatile boolean shuttingDown = false;
     private static volatile boolean savePending = false;
-    private static final long SAVE_DELAY_MS = 5000;
+    private static final long SAVE_DELAY_MS = 1000;
+    private static final CacheJournal journal = new CacheJournal(CACHE_FILE, LEGACY_CACHE_FILE, JOURNAL_FILE, LOCK_FILE);
+    private static final long COMPACT_INTERVAL_MINUTES = 10;
+    private static final long COMPACT_MIN_JOURNAL_BYTES = 256 * 1024;
+    private static final long SYNC_INTERVAL_MS = 2000;
     
     // Offline-Modus (Nr. 10)
     private static volatile boolean offlineMode = false;
     private static long lastOnlineCheck = 0;
     private static final long ONLINE_CHECK_INTERVAL_MS = 30000;
     
+    // A current name outranks the same name in someone else's history
+    private static final int ALIAS_HISTORY = 0;
+    private static final int ALIAS_CURRENT = 1;
+    
+    private record Alias(String key, int priority) {}
+    
     public static class CachedPlayer {
+        // The profile's current name, or what was looked up if the profile has none
         public String name;
-        public String uuid;
-        public JsonObject data;
+        public final PlayerProfile profile;
+        // When the whole profile was fetched, and when its views/availability were last refreshed
         public long timestamp;
+        public long volatileTimestamp;
         public boolean available;
         
-        public CachedPlayer(String name, String uuid, JsonObject data, boolean available) {
-            this.name = name;
-            this.uuid = uuid;
-            this.data = data;
+        public CachedPlayer(String name, PlayerProfile profile, boolean available) {
+            this.name = profile.username() != null ? profile.username() : name;
+            this.profile = profile;
             this.available = available;
             this.timestamp = System.currentTimeMillis();
+            this.volatileTimestamp = timestamp;
+        }
+        
+        public long lastWrite() {
+            return Math.max(timestamp, volatileTimestamp);
+        }
+        
+        public String uuid() {
+            return profile.uuid();
         }
         
+        public int reads;
+        // Not persisted: after a failed availability re-check the next one waits, doubling per failure
+        int volatileFailures;
+        long volatileRetryAt;
+        
         public boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > getCacheExpiryMs();
+            return isExpired(System.currentTimeMillis());
+        }
+        
+        public boolean isPastStaleGrace() {
+            return isPastStaleGrace(System.currentTimeMillis());
+        }
+        
+        public boolean isVolatileExpired() {
+            return isVolatileExpired(System.currentTimeMillis());
+        }
+        
+        // Lookups read the clock once and pass it through
+        boolean isExpired(long now) {
+            return now - timestamp > getHistoryExpiryMs();
+        }
+        
+        boolean isVolatileExpired(long now) {
+            return now - volatileTimestamp > getCacheExpiryMs();
+        }
+        
+        boolean isPastStaleGrace(long now) {
+            return now - timestamp > getHistoryExpiryMs() + getStaleGraceMs();
+        }
+        
+        boolean isDueForRefreshAhead(long now) {
+            return reads >= REFRESH_AHEAD_MIN_READS
+                && now - timestamp > getHistoryExpiryMs() * REFRESH_AHEAD_RATIO;
         }
     }
     
+    // Startup: the snapshot is loaded off the client thread; lookups wait on this future
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    
+    /**
+     * Starts loading the cache in the background and returns immediately.
+     * The saver thread starts once the cache is loaded; besides writing, it merges other game instances' writes.
+     */
     public static void init() {
-        try {
-            if (!Files.exists(CACHE_DIR)) {
-                Files.createDirectories(CACHE_DIR);
+        LookupExecutor.executor().execute(() -> {
+            long start = System.nanoTime();
+            try {
+                if (!Files.exists(CACHE_DIR)) {
+                    Files.createDirectories(CACHE_DIR);
+                }
+                loadCacheConfig();
+                policy.setMaximum(maxEntries, maxWeightBytes);
+                journal.setExternalListener(NameCache::mergeExternal, NameCache::clearLocal);
+                offHeap.open();
+                dataset.open();
+                loadCache();
+                watchMemoryPressure();
+                ScheduledExecutorService scheduler = saver();
+                if (scheduler != null && (journal.getReplayedRecords() > 0 || journal.isMigrationPending() || rekeyedOnLoad)) {
+                    scheduler.execute(NameCache::compact);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to initialize cache: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to load cache: {}", e.getMessage());
+            } finally {
+                ready.complete(null);
+                LOGGER.info("Cache ready in {} ms", (System.nanoTime() - start) / 1_000_000);
             }
-            loadCacheConfig();
-            loadCache();
-            startSaveScheduler();
-            startCleanupScheduler();
-        } catch (IOException e) {
-            LOGGER.error("Failed to initialize cache: {}", e.getMessage());
-        }
+            if (journal.hasPending()) {
+                scheduleSave();
+            }
+        });
+    }
+    
+    public static boolean isReady() {
+        return ready.isDone();
+    }
+    
+    public static CompletableFuture<Void> whenReady() {
+        return ready;
     }
     
     public static void shutdown() {
-        if (saveScheduler != null && !saveScheduler.isShutdown()) {
-            if (savePending) {
-                doSaveCache();
-            }
-            saveScheduler.shutdown();
+        ScheduledExecutorService scheduler;
+        synchronized (NameCache.class) {
+            shuttingDown = true;
+            scheduler = saveScheduler;
+        }
+        if (!isReady()) {
+            // Never overwrite the snapshot with a half-loaded map
+            return;
+        }
+        if (savePending || journal.hasPending()) {
+            flushJournal();
+        }
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
             try {
-                if (!saveScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    saveScheduler.shutdownNow();
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
                 }
             } catch (InterruptedException e) {
-                saveScheduler.shutdownNow();
+                scheduler.shutdownNow();
                 Thread.currentThread().interrupt();
             }
         }
+        offHeap.close();
+        dataset.close();
+    }
+    
+    // Started after loading, together with the periodic compaction, cleanup and journal sync tasks
+    private static ScheduledExecutorService saver() {
+        ScheduledExecutorService scheduler = saveScheduler;
+        if (scheduler == null) {
+            synchronized (NameCache.class) {
+                if (saveScheduler == null && !shuttingDown) {
+                    startSaveScheduler();
+                    startCleanupScheduler();
+                }
+                scheduler = saveScheduler;
+            }
+        }
+        return scheduler;
     }
     
     // Nr. 1: Debounced Save Scheduler
@@ -103,6 +299,21 @@ public class NameCache {
             t.setDaemon(true);
             return t;
         });
+        saveScheduler.scheduleAtFixedRate(() -> {
+            if (journal.getJournalSize() > 0) {
+                compact();
+            }
+        }, COMPACT_INTERVAL_MINUTES, COMPACT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // Lookups only read memory; other instances' writes are merged here, one stat when nothing changed
+        saveScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (isReady()) {
+                    journal.sync();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.debug("Failed to merge shared cache changes: {}", e.getMessage());
+            }
+        }, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
     
     // Nr. 2: Expired Cache Cleanup
@@ -112,72 +323,706 @@ public class NameCache {
             if (removed > 0) {
                 LOGGER.info("Cleaned up {} expired cache entries", removed);
             }
-        }, 5, 5, TimeUnit.MINUTES);
+        }, ExpiryIndex.BUCKET_MS, ExpiryIndex.BUCKET_MS, TimeUnit.MILLISECONDS);
     }
     
+    /**
+     * Removes entries past the stale grace period. Only the write-time buckets that are due are visited,
+     * so the cost depends on how many entries expire, not on the cache size.
+     */
     public static int cleanupExpiredEntries() {
+        long now = System.currentTimeMillis();
         int removed = 0;
-        Iterator<Map.Entry<String, CachedPlayer>> it = playerCache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, CachedPlayer> entry = it.next();
-            if (entry.getValue().isExpired()) {
-                it.remove();
-                removed++;
+        for (String key : expiry.pollWrittenBefore(now - getHistoryExpiryMs() - getStaleGraceMs())) {
+            CachedPlayer cached = playerCache.get(key);
+            if (cached == null) {
+                continue;
+            }
+            if (!cached.isPastStaleGrace(now)) {
+                // Rewritten since it was indexed, or still inside the boundary bucket
+                expiry.onWrite(key, cached.timestamp);
+            } else {
+                boolean swept;
+                synchronized (policy) {
+                    swept = playerCache.remove(key, cached);
+                    if (swept) {
+                        unindexAliases(key, cached);
+                        policy.onRemove(key);
+                        journal.recordRemove(key);
+                    }
+                }
+                if (swept) {
+                    SuggestionIndex.onEvicted(cached.name);
+                    // Still useful offline
+                    offHeap.put(key, cached);
+                    removed++;
+                }
             }
         }
         if (removed > 0) {
+            expired.add(removed);
             scheduleSave();
         }
         return removed;
     }
     
-    public static void cachePlayer(String name, String uuid, JsonObject data, boolean available) {
-        playerCache.put(name.toLowerCase(), new CachedPlayer(name, uuid, data, available));
+    /**
+     * Stores a profile once per account. {@code name} is what was looked up (a name or UUID);
+     * every name in the profile's history becomes an alias for the entry.
+     */
+    public static void cachePlayer(String name, PlayerProfile profile, boolean available) {
+        CachedPlayer player = new CachedPlayer(name, profile, available);
+        notFound.remove(name.toLowerCase());
+        store(player, true);
         scheduleSave();
     }
+
+    // Written by another game instance sharing the cache files; the newer copy wins. Another instance's compaction
+    // replays its whole snapshot, so entries this instance moved off-heap are updated there, not pulled back onto the heap
+    private static boolean mergeExternal(String key, CachedPlayer player) {
+        if (player.name == null) {
+            player.name = key;
+        }
+        String primary = primaryKey(player);
+        CachedPlayer existing = playerCache.get(primary);
+        if (existing != null) {
+            if (existing.lastWrite() >= player.lastWrite()) {
+                return false;
+            }
+            store(player, false);
+            return true;
+        }
+        MappedProfileStore.Entry spilled = offHeap.get(primary, MappedProfileStore.RANK_CURRENT);
+        if (spilled == null) {
+            store(player, false);
+            return true;
+        }
+        if (spilled.player().lastWrite() >= player.lastWrite()) {
+            return false;
+        }
+        return offHeap.put(primary, player);
+    }
+
+    private static void store(CachedPlayer player, boolean journaled) {
+        String key = primaryKey(player);
+        List<Evicted> evicted;
+        synchronized (policy) {
+            CachedPlayer previous = playerCache.put(key, player);
+            if (previous != null) {
+                unindexAliases(key, previous);
+            }
+            indexAliases(key, player);
+            expiry.onWrite(key, player.timestamp);
+            if (journaled) {
+                journal.recordPut(key, player);
+            }
+            evicted = removeVictims(policy.onWrite(key, estimateWeight(player)));
+        }
+        notFound.remove(player.name.toLowerCase());
+        SuggestionIndex.onCached(player.name, player.timestamp);
+        spill(evicted);
+    }
+    
+    private record Evicted(String key, CachedPlayer player) {}
+    
+    // Map, policy, indexes and journal change together under the policy lock, so a key picked as a victim
+    // cannot be re-put in between and end up in the map but not in the policy. Callers hold that lock.
+    private static List<Evicted> removeVictims(List<String> keys) {
+        List<Evicted> evicted = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            CachedPlayer removed = playerCache.remove(key);
+            if (removed != null) {
+                unindexAliases(key, removed);
+                evicted.add(new Evicted(key, removed));
+            }
+            expiry.onRemove(key);
+            journal.recordRemove(key);
+        }
+        return evicted;
+    }
+    
+    // Evicted entries stay available off-heap; written after the policy lock is released
+    // On the saver thread, in eviction order, so callers never wait on an off-heap write or compaction
+    private static void spill(List<Evicted> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        for (Evicted entry : evicted) {
+            SuggestionIndex.onEvicted(entry.player().name);
+        }
+        Runnable write = () -> {
+            for (Evicted entry : evicted) {
+                offHeap.put(entry.key(), entry.player());
+            }
+        };
+        ScheduledExecutorService scheduler = saver();
+        try {
+            if (scheduler != null) {
+                scheduler.execute(write);
+                return;
+            }
+        } catch (RejectedExecutionException ignored) {
+        }
+        write.run();
+    }
+    
+    /**
+     * Lowercase dashed UUID for a dashed or undashed UUID string, or {@code null} if it is not one.
+     */
+    public static String normalizeUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        String hex = value.replace("-", "").toLowerCase();
+        if (hex.length() != 32 || (value.length() != 32 && value.length() != 36)) {
+            return null;
+        }
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return null;
+            }
+        }
+        return hex.substring(0, 8) + "-" + hex.substring(8, 12) + "-" + hex.substring(12, 16) + "-"
+            + hex.substring(16, 20) + "-" + hex.substring(20);
+    }
+    
+    private static String primaryKey(CachedPlayer player) {
+        String uuid = player.uuid();
+        return uuid != null ? uuid : player.name.toLowerCase();
+    }
+    
+    // Name or UUID -> primary key of the account currently using the name. A name only found in someone's history
+    // is not theirs to answer for (it may have been claimed since), so it maps to itself like an unknown name,
+    // which also keeps name-keyed entries resolving
+    private static String resolveKey(String nameOrUuid) {
+        String uuid = normalizeUuid(nameOrUuid);
+        if (uuid != null) {
+            return uuid;
+        }
+        String name = nameOrUuid.toLowerCase();
+        Alias alias = aliases.get(name);
+        return alias != null && alias.priority() == ALIAS_CURRENT ? alias.key() : name;
+    }
+    
+    private static void indexAliases(String key, CachedPlayer player) {
+        synchronized (aliases) {
+            for (String name : namesOf(player)) {
+                String lower = name.toLowerCase();
+                int priority = name.equalsIgnoreCase(player.name) ? ALIAS_CURRENT : ALIAS_HISTORY;
+                Alias existing = aliases.get(lower);
+                if (existing == null || existing.key().equals(key) || existing.priority() <= priority) {
+                    aliases.put(lower, new Alias(key, priority));
+                }
+                // Only the account currently using a watched name is pinned, not its former holders
+                Set<String> pinnedKeys = priority == ALIAS_CURRENT ? pinnedNames.get(lower) : null;
+                if (pinnedKeys != null) {
+                    pinnedKeys.add(key);
+                    policy.pin(key);
+                }
+            }
+            history.add(key, player.profile);
+            search.add(player.profile);
+        }
+    }
+    
+    private static void unindexAliases(String key, CachedPlayer player) {
+        synchronized (aliases) {
+            history.remove(key, player.profile);
+            search.remove(player.profile);
+            for (String name : namesOf(player)) {
+                String lower = name.toLowerCase();
+                Alias alias = aliases.get(lower);
+                if (alias != null && alias.key().equals(key)) {
+                    aliases.remove(lower);
+                    restoreAlias(lower);
+                }
+            }
+        }
+    }
+    
+    // Another cached account may also mention the name, shadowed until now; caller holds the aliases lock
+    private static void restoreAlias(String lower) {
+        Alias best = null;
+        for (NameHistoryIndex.Interval owner : history.owners(lower)) {
+            CachedPlayer other = playerCache.get(owner.key());
+            if (other == null) {
+                continue;
+            }
+            int priority = lower.equalsIgnoreCase(other.name) ? ALIAS_CURRENT : ALIAS_HISTORY;
+            if (best == null || priority > best.priority()) {
+                best = new Alias(owner.key(), priority);
+            }
+        }
+        if (best != null) {
+            aliases.put(lower, best);
+        }
+    }
+    
+    private static Set<String> namesOf(CachedPlayer player) {
+        Set<String> names = new HashSet<>();
+        if (player.name != null) {
+            names.add(player.name);
+        }
+        PlayerProfile profile = player.profile;
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (profile.historyName(i) != null) {
+                names.add(profile.historyName(i));
+            }
+        }
+        return names;
+    }
+    
+    // Pinned entries (watchlist names) are never evicted
+    public static void pin(String name) {
+        String lower = name.toLowerCase();
+        synchronized (policy) {
+            String key = resolveKey(lower);
+            pinnedNames.computeIfAbsent(lower, n -> new HashSet<>()).add(key);
+            policy.pin(key);
+        }
+    }
+    
+    // Unpins every key the name pinned, unless another watched name still pins it
+    public static void unpin(String name) {
+        String lower = name.toLowerCase();
+        synchronized (policy) {
+            Set<String> keys = pinnedNames.remove(lower);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                if (pinnedNames.values().stream().noneMatch(other -> other.contains(key))) {
+                    policy.unpin(key);
+                }
+            }
+        }
+    }
+    
+    static long estimateWeight(CachedPlayer player) {
+        // name is the profile's own interned string unless the profile had none
+        return 40 + player.profile.estimateBytes();
+    }
     
     // Nr. 1: Debounced Save
     private static void scheduleSave() {
-        if (!savePending && saveScheduler != null && !saveScheduler.isShutdown()) {
+        if (savePending || !isReady()) {
+            // Writes made while loading are flushed once loadCache() has merged them
+            return;
+        }
+        ScheduledExecutorService scheduler = saver();
+        if (scheduler != null && !scheduler.isShutdown()) {
             savePending = true;
-            saveScheduler.schedule(() -> {
-                doSaveCache();
+            scheduler.schedule(() -> {
                 savePending = false;
+                flushJournal();
             }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
         }
     }
     
+    private static void flushJournal() {
+        try {
+            if (!Files.exists(CACHE_DIR)) {
+                Files.createDirectories(CACHE_DIR);
+            }
+            journal.flush();
+            if (journal.getJournalSize() > Math.max(COMPACT_MIN_JOURNAL_BYTES, journal.getSnapshotSize())) {
+                compact();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to write cache journal: {}", e.getMessage());
+        }
+    }
+    
+    private static void compact() {
+        try {
+            journal.compact(playerCache);
+        } catch (IOException e) {
+            LOGGER.error("Failed to compact cache: {}", e.getMessage());
+        }
+    }
+    
     // Nr. 8: Cache-Statistiken
     public static CachedPlayer getCached(String name) {
-        CachedPlayer cached = playerCache.get(name.toLowerCase());
-        if (cached != null && !cached.isExpired()) {
-            cacheHits.incrementAndGet();
+        String key = resolveKey(name);
+        CachedPlayer cached = playerCache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached == null && (cached = promote(key, now, false)) != null) {
+            key = primaryKey(cached);
+        }
+        if (cached != null && !cached.isExpired(now)) {
+            policy.onRead(key);
+            countLookup(CacheStats.Source.INTERACTIVE, true);
+            cached.reads++;
+            if (cached.isDueForRefreshAhead(now)) {
+                refresh(key);
+            } else if (cached.isVolatileExpired(now)) {
+                refreshVolatile(key, cached);
+            }
             return cached;
         }
-        cacheMisses.incrementAndGet();
+        countLookup(CacheStats.Source.INTERACTIVE, false);
         return null;
     }
     
+    /**
+     * Like {@link #getCached} but also returns expired entries within the stale grace period,
+     * starting a background refresh for them. Callers check {@link CachedPlayer#isExpired()} to mark the output.
+     */
+    public static CachedPlayer getCachedOrStale(String name) {
+        String key = resolveKey(name);
+        CachedPlayer cached = playerCache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached == null && (cached = promote(key, now, false)) != null) {
+            key = primaryKey(cached);
+        }
+        if (cached == null || cached.isPastStaleGrace(now)) {
+            countLookup(CacheStats.Source.INTERACTIVE, false);
+            return null;
+        }
+        policy.onRead(key);
+        countLookup(CacheStats.Source.INTERACTIVE, true);
+        cached.reads++;
+        if (cached.isExpired(now)) {
+            staleHits.increment();
+            refresh(key);
+        } else if (cached.isDueForRefreshAhead(now)) {
+            refresh(key);
+        } else if (cached.isVolatileExpired(now)) {
+            refreshVolatile(key, cached);
+        }
+        return cached;
+    }
+    
+    public static void setRefresher(Function<String, CompletableFuture<?>> newRefresher) {
+        refresher = newRefresher;
+    }
+    
+    /**
+     * How {@link #refreshVolatile} learns whether a name can be claimed: {@code true}/{@code false}, or {@code null} if unknown.
+     */
+    public static void setAvailabilityChecker(Function<String, CompletableFuture<Boolean>> checker) {
+        availabilityChecker = checker;
+    }
+    
+    public static boolean isRefreshing(String name) {
+        String key = resolveKey(name);
+        return refreshing.contains(key) || refreshingVolatile.contains(key);
+    }
+    
+    /**
+     * Identity and history are still fresh but the volatile fields are not: re-checks the availability of the
+     * most recent historical names and swaps in a profile with the new flags, without refetching the profile.
+     * View counts are only served with the full profile, so they are not refreshed here and age with the history.
+     */
+    private static void refreshVolatile(String key, CachedPlayer cached) {
+        Function<String, CompletableFuture<Boolean>> checker = availabilityChecker;
+        // Floodgate histories list gamertags, which ashcon does not know
+        if (checker == null || offlineMode || BedrockCache.isFloodgateUuid(key)
+                || System.currentTimeMillis() < cached.volatileRetryAt
+                || refreshing.contains(key) || !refreshingVolatile.add(key)) {
+            return;
+        }
+        PlayerProfile profile = cached.profile;
+        byte[] flags = new byte[profile.historySize()];
+        List<CompletableFuture<?>> checks = new ArrayList<>();
+        AtomicInteger answered = new AtomicInteger();
+        try {
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = profile.availability(i);
+                String name = profile.historyName(i);
+                // The current name is held by this account, so only earlier names can change
+                if (name == null || name.equalsIgnoreCase(profile.username()) || checks.size() >= MAX_AVAILABILITY_RECHECKS) {
+                    continue;
+                }
+                int index = i;
+                checks.add(checker.apply(name).thenAccept(available -> {
+                    if (available != null) {
+                        flags[index] = PlayerProfile.availabilityOf(available);
+                        answered.incrementAndGet();
+                    }
+                }));
+            }
+        } catch (RuntimeException e) {
+            refreshingVolatile.remove(key);
+            LOGGER.debug("Availability refresh for {} could not start: {}", key, e.getMessage());
+            return;
+        }
+        CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+            refreshingVolatile.remove(key);
+            if (error != null || (!checks.isEmpty() && answered.get() == 0)) {
+                // volatileTimestamp stays old, so without this every read would start another round of checks
+                int failures = ++cached.volatileFailures;
+                cached.volatileRetryAt = System.currentTimeMillis()
+                    + Math.min(getCacheExpiryMs(), VOLATILE_RETRY_MS << Math.min(failures - 1, 10));
+                LOGGER.debug("Availability refresh for {} failed: {}", key, error != null ? error.getMessage() : "no answers");
+                return;
+            }
+            CachedPlayer updated = new CachedPlayer(cached.name, profile.withAvailability(flags), cached.available);
+            updated.timestamp = cached.timestamp;
+            updated.reads = cached.reads;
+            // A full refetch that landed meanwhile wins
+            boolean replaced;
+            synchronized (policy) {
+                replaced = playerCache.replace(key, cached, updated);
+                if (replaced) {
+                    journal.recordPut(key, updated);
+                }
+            }
+            if (replaced) {
+                partialRefreshes.increment();
+                scheduleSave();
+            }
+        });
+    }
+    
+    private static void refresh(String key) {
+        Function<String, CompletableFuture<?>> current = refresher;
+        if (current == null || offlineMode || !refreshing.add(key)) {
+            return;
+        }
+        refreshCount.increment();
+        try {
+            current.apply(key).whenComplete((result, error) -> {
+                refreshing.remove(key);
+                if (error != null) {
+                    LOGGER.debug("Background refresh for {} failed: {}", key, error.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            LOGGER.debug("Background refresh for {} could not start: {}", key, e.getMessage());
+        }
+    }
+    
+    /**
+     * Every cached account that held {@code name}, oldest first.
+     */
+    public static List<NameHistoryIndex.Interval> getOwners(String name) {
+        return history.owners(name);
+    }
+    
+    public static NameHistoryIndex.Interval getOwnerAt(String name, long time) {
+        return history.ownerAt(name, time);
+    }
+    
+    /**
+     * Names in cached profiles containing or resembling {@code fragment}, best first; never touches the network.
+     */
+    public static List<TrigramIndex.Match> search(String fragment, int limit) {
+        return search.search(fragment, limit);
+    }
+    
+    public static int getSearchableNames() {
+        return search.size();
+    }
+    
+    // Current name of a cached account without touching hit statistics or eviction order
+    public static String getCurrentName(String key) {
+        CachedPlayer cached = playerCache.get(key);
+        return cached != null ? cached.name : null;
+    }
+    
+    public static void cacheNotFound(String name) {
+        String key = name.toLowerCase();
+        notFound.remove(key);
+        notFound.put(key, System.currentTimeMillis());
+    }
+    
+    /**
+     * Whether the API reported this name as nonexistent within the last few minutes.
+     */
+    public static boolean isKnownNotFound(String name) {
+        String key = name.toLowerCase();
+        Long recorded = notFound.get(key);
+        if (recorded == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - recorded > NEGATIVE_TTL_MS) {
+            notFound.remove(key, recorded);
+            return false;
+        }
+        negativeHits.increment();
+        return true;
+    }
+    
     public static CachedPlayer getCachedOffline(String name) {
-        CachedPlayer cached = playerCache.get(name.toLowerCase());
+        String key = resolveKey(name);
+        CachedPlayer cached = playerCache.get(key);
+        if (cached == null && (cached = promote(key, System.currentTimeMillis(), true)) != null) {
+            key = primaryKey(cached);
+        }
         if (cached != null) {
-            cacheHits.incrementAndGet();
-        } else {
-            cacheMisses.incrementAndGet();
+            policy.onRead(key);
+        } else if ((cached = dataset.get(name, DatasetIndex.RANK_CURRENT)) != null) {
+            datasetHits.increment();
         }
+        countLookup(CacheStats.Source.OFFLINE, cached != null);
         return cached;
     }
     
+    /**
+     * A live-cache miss answered from the imported dataset. Starts a background fetch of {@code name} so the next
+     * lookup is live. Only a UUID or current-name match answers: a name found only in someone's history may have
+     * been claimed since, so it is left to the live lookup.
+     */
+    public static CachedPlayer getImported(String name) {
+        CachedPlayer imported = dataset.get(name, DatasetIndex.RANK_CURRENT);
+        if (imported != null) {
+            datasetHits.increment();
+            refresh(name.toLowerCase());
+        }
+        return imported;
+    }
+    
+    /**
+     * Imports a name-history dump (see {@link DatasetImporter}) and switches dataset lookups to it once complete.
+     * One import runs at a time; relative paths are resolved against the mod's config directory.
+     */
+    public static DatasetImporter.Result importDataset(String file, LongConsumer progress) throws IOException {
+        Path source = CACHE_DIR.resolve(file);
+        if (!Files.isRegularFile(source)) {
+            throw new FileNotFoundException("No such file: " + source);
+        }
+        if (!importing.compareAndSet(false, true)) {
+            throw new IllegalStateException("An import is already running");
+        }
+        try {
+            Path target = dataset.nextFile();
+            DatasetImporter.Result result = DatasetImporter.run(source, target, progress);
+            dataset.replace(target);
+            LOGGER.info("Imported {} profiles ({} keys, {} skipped) from {} in {} ms", result.profiles(), result.keys(),
+                result.skipped(), source.getFileName(), result.nanos() / 1_000_000);
+            return result;
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    private static void countLookup(CacheStats.Source source, boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+        CacheStats.record(source, hit);
+    }
+    
+    // For follow-ups to a displayed profile (history pages): no statistics, eviction order or promotion
+    public static CachedPlayer peek(String name) {
+        String key = resolveKey(name);
+        CachedPlayer cached = playerCache.get(key);
+        if (cached == null) {
+            MappedProfileStore.Entry entry = offHeap.get(key, MappedProfileStore.RANK_CURRENT);
+            cached = entry != null ? entry.player() : dataset.get(name, DatasetIndex.RANK_CURRENT);
+        }
+        return cached;
+    }
+    
+    // Heap only, for the client thread; callers fall back to peek off it
+    public static CachedPlayer peekHeap(String name) {
+        return playerCache.get(resolveKey(name));
+    }
+    
     public static boolean hasCached(String name) {
-        return playerCache.containsKey(name.toLowerCase());
+        String key = resolveKey(name);
+        return playerCache.containsKey(key) || offHeap.get(key, MappedProfileStore.RANK_CURRENT) != null;
+    }
+    
+    // Heap only: no off-heap read, for callers on the client thread
+    public static boolean isOnHeap(String name) {
+        return playerCache.containsKey(resolveKey(name));
+    }
+    
+    /**
+     * Heap miss: looks the entry up off-heap and moves it back onto the heap. Entries past the stale grace
+     * would be swept out again right away, so they are only read, and only when {@code includeOld} is set.
+     */
+    private static CachedPlayer promote(String key, long now, boolean includeOld) {
+        MappedProfileStore.Entry entry = offHeap.get(key, MappedProfileStore.RANK_CURRENT);
+        if (entry == null) {
+            return null;
+        }
+        CachedPlayer player = entry.player();
+        if (player.isPastStaleGrace(now)) {
+            return includeOld ? player : null;
+        }
+        List<Evicted> evicted;
+        synchronized (policy) {
+            CachedPlayer existing = playerCache.putIfAbsent(entry.key(), player);
+            if (existing != null) {
+                return existing;
+            }
+            indexAliases(entry.key(), player);
+            expiry.onWrite(entry.key(), player.timestamp);
+            journal.recordPut(entry.key(), player);
+            evicted = removeVictims(policy.onWrite(entry.key(), estimateWeight(player)));
+        }
+        offHeap.remove(entry);
+        spill(evicted);
+        promotions.increment();
+        scheduleSave();
+        return player;
+    }
+    
+    // Arms a softly reachable sentinel; the GC clears it once free heap runs short (or it has idled long enough),
+    // and the cleaner then checks the heap and re-arms. No JVM-wide memory pool settings are touched
+    private static void watchMemoryPressure() {
+        if (shuttingDown) {
+            return;
+        }
+        Object sentinel = new Object();
+        pressureSentinel = new SoftReference<>(sentinel);
+        pressureCleaner.register(sentinel, () -> {
+            try {
+                LookupExecutor.executor().execute(NameCache::relieveMemoryPressure);
+            } catch (RejectedExecutionException ignored) {
+            }
+            watchMemoryPressure();
+        });
+    }
+    
+    private static void relieveMemoryPressure() {
+        Runtime runtime = Runtime.getRuntime();
+        if (runtime.totalMemory() - runtime.freeMemory() < runtime.maxMemory() * PRESSURE_THRESHOLD) {
+            return;
+        }
+        List<Evicted> shed;
+        synchronized (policy) {
+            shed = removeVictims(policy.shed((long) (playerCache.size() * PRESSURE_SHED_RATIO)));
+        }
+        if (shed.isEmpty()) {
+            return;
+        }
+        spill(shed);
+        scheduleSave();
+        LOGGER.info("Memory pressure: moved {} cache entries off-heap", shed.size());
     }
     
     public static void clearCache() {
-        playerCache.clear();
-        cacheHits.set(0);
-        cacheMisses.set(0);
+        if (!isReady()) {
+            ready.thenRun(NameCache::clearCache);
+            return;
+        }
+        clearLocal();
+        journal.recordClear();
+        cacheHits.reset();
+        cacheMisses.reset();
+        negativeHits.reset();
+        CacheStats.reset();
         scheduleSave();
     }
+
+    // Also runs when another game instance cleared the shared cache
+    private static void clearLocal() {
+        synchronized (policy) {
+            playerCache.clear();
+            aliases.clear();
+            history.clear();
+            search.clear();
+            policy.clear();
+            expiry.clear();
+        }
+        notFound.clear();
+        offHeap.clear();
+        SuggestionIndex.onCacheCleared();
+    }
     
     public static int getCacheSize() {
         return playerCache.size();
@@ -185,16 +1030,16 @@ public class NameCache {
     
     // Nr. 8: Cache-Statistiken Getter
     public static long getCacheHits() {
-        return cacheHits.get();
+        return cacheHits.sum();
     }
     
     public static long getCacheMisses() {
-        return cacheMisses.get();
+        return cacheMisses.sum();
     }
     
     public static double getCacheHitRate() {
-        long hits = cacheHits.get();
-        long total = hits + cacheMisses.get();
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
         return total > 0 ? (double) hits / total * 100.0 : 0.0;
     }
     
@@ -203,7 +1048,113 @@ public class NameCache {
             getCacheSize(), getCacheHits(), getCacheMisses(), getCacheHitRate());
     }
     
-    // Nr. 9: Konfigurierbare Cache-Expiry
+    public static long getNegativeHits() {
+        return negativeHits.sum();
+    }
+    
+    public static int getNegativeCacheSize() {
+        return notFound.size();
+    }
+    
+    public static long getStaleHits() {
+        return staleHits.sum();
+    }
+    
+    public static long getRefreshCount() {
+        return refreshCount.sum();
+    }
+    
+    public static long getEvictionCount() {
+        return policy.getEvictionCount();
+    }
+    
+    public static long getOffHeapSize() {
+        return offHeap.size();
+    }
+    
+    public static long getOffHeapBytes() {
+        return offHeap.getFileBytes();
+    }
+    
+    public static long getPromotions() {
+        return promotions.sum();
+    }
+    
+    public static long getOffHeapBusyMisses() {
+        return offHeap.getBusyMisses();
+    }
+    
+    public static long getDatasetSize() {
+        return dataset.size();
+    }
+    
+    public static long getDatasetBytes() {
+        return dataset.getFileBytes();
+    }
+    
+    public static long getDatasetImportedAt() {
+        return dataset.getImportedAt();
+    }
+    
+    public static long getDatasetHits() {
+        return datasetHits.sum();
+    }
+
+    public static long getMergedFromOtherInstances() {
+        return journal.getMergedRecords();
+    }
+
+    public static long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * Heap entries counted by age, in the buckets of {@link CacheStats#AGE_LABELS}.
+     */
+    public static long[] getAgeHistogram() {
+        return CacheStats.ageHistogram(playerCache.values(), System.currentTimeMillis());
+    }
+
+    public static CacheJournal getJournal() {
+        return journal;
+    }
+    
+    public static long getEstimatedBytes() {
+        return policy.getTotalWeight();
+    }
+    
+    public static long getMaxEntries() {
+        return maxEntries;
+    }
+    
+    public static long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+    
+    public static void setMaxEntries(long entries) {
+        maxEntries = Math.max(100, Math.min(1_000_000, entries));
+        applyMaximum();
+        saveCacheConfig();
+        scheduleSave();
+    }
+    
+    private static void applyMaximum() {
+        List<Evicted> evicted;
+        synchronized (policy) {
+            evicted = removeVictims(policy.setMaximum(maxEntries, maxWeightBytes));
+        }
+        spill(evicted);
+    }
+    
+    // 0 disables the byte limit
+    public static void setMaxWeightBytes(long bytes) {
+        maxWeightBytes = Math.max(0, bytes);
+        applyMaximum();
+        saveCacheConfig();
+        scheduleSave();
+    }
+    
+    // Nr. 9: Konfigurierbare Cache-Expiry (views and availability)
     public static long getCacheExpiryMinutes() {
         return cacheExpiryMinutes;
     }
@@ -213,6 +1164,20 @@ public class NameCache {
         saveCacheConfig();
     }
     
+    // Identity and name history
+    public static long getHistoryExpiryMinutes() {
+        return historyExpiryMinutes;
+    }
+    
+    public static void setHistoryExpiryMinutes(long minutes) {
+        historyExpiryMinutes = Math.max(60, Math.min(43200, minutes)); // 1h - 30 days
+        saveCacheConfig();
+    }
+    
+    public static long getPartialRefreshCount() {
+        return partialRefreshes.sum();
+    }
+    
     // Nr. 10: Offline-Modus
     public static boolean isOfflineMode() {
         return offlineMode;
@@ -251,36 +1216,44 @@ public class NameCache {
     }
     
     private static void loadCache() {
-        if (!Files.exists(CACHE_FILE)) {
-            return;
-        }
-        
-        try (Reader reader = Files.newBufferedReader(CACHE_FILE)) {
-            Type type = new TypeToken<Map<String, CachedPlayer>>(){}.getType();
-            Map<String, CachedPlayer> loaded = GSON.fromJson(reader, type);
-            if (loaded != null) {
-                playerCache.clear();
-                playerCache.putAll(loaded);
-                LOGGER.info("Loaded {} cached players", loaded.size());
+        try {
+            Map<String, CachedPlayer> loaded = journal.load();
+            // Older files are keyed by the typed name and may hold the same account several times; keep the newest
+            Map<String, CachedPlayer> byKey = new HashMap<>(loaded.size() * 4 / 3 + 1);
+            for (Map.Entry<String, CachedPlayer> e : loaded.entrySet()) {
+                CachedPlayer player = e.getValue();
+                if (player.name == null) {
+                    player.name = e.getKey();
+                }
+                String key = primaryKey(player);
+                if (!key.equals(e.getKey())) {
+                    rekeyedOnLoad = true;
+                }
+                byKey.merge(key, player, (a, b) -> a.timestamp >= b.timestamp ? a : b);
             }
+            // Oldest first so the policy keeps the most recent entries if the file exceeds the limit.
+            // Lookups that finished while loading are newer than the file and win.
+            byKey.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().timestamp))
+                .forEach(e -> {
+                    List<Evicted> evicted;
+                    synchronized (policy) {
+                        if (playerCache.putIfAbsent(e.getKey(), e.getValue()) != null) {
+                            return;
+                        }
+                        indexAliases(e.getKey(), e.getValue());
+                        expiry.onWrite(e.getKey(), e.getValue().timestamp);
+                        evicted = removeVictims(policy.onWrite(e.getKey(), estimateWeight(e.getValue())));
+                    }
+                    SuggestionIndex.onCached(e.getValue().name, e.getValue().timestamp);
+                    spill(evicted);
+                });
+            LOGGER.info("Loaded {} cached players ({} journal records replayed)", playerCache.size(), journal.getReplayedRecords());
         } catch (Exception e) {
             LOGGER.error("Failed to load cache: {}", e.getMessage());
         }
     }
     
-    private static void doSaveCache() {
-        try {
-            if (!Files.exists(CACHE_DIR)) {
-                Files.createDirectories(CACHE_DIR);
-            }
-            try (Writer writer = Files.newBufferedWriter(CACHE_FILE)) {
-                GSON.toJson(playerCache, writer);
-            }
-        } catch (IOException e) {
-            LOGGER.error("Failed to save cache: {}", e.getMessage());
-        }
-    }
-    
     private static void loadCacheConfig() {
         if (!Files.exists(CONFIG_FILE)) {
             return;
@@ -290,6 +1263,15 @@ public class NameCache {
             if (config != null && config.has("cacheExpiryMinutes")) {
                 cacheExpiryMinutes = config.get("cacheExpiryMinutes").getAsLong();
             }
+            if (config != null && config.has("historyExpiryMinutes")) {
+                historyExpiryMinutes = Math.max(60, Math.min(43200, config.get("historyExpiryMinutes").getAsLong()));
+            }
+            if (config != null && config.has("maxEntries")) {
+                maxEntries = Math.max(100, Math.min(1_000_000, config.get("maxEntries").getAsLong()));
+            }
+            if (config != null && config.has("maxWeightBytes")) {
+                maxWeightBytes = Math.max(0, config.get("maxWeightBytes").getAsLong());
+            }
         } catch (Exception e) {
             LOGGER.error("Failed to load cache config: {}", e.getMessage());
         }
@@ -302,6 +1284,9 @@ public class NameCache {
             }
             JsonObject config = new JsonObject();
             config.addProperty("cacheExpiryMinutes", cacheExpiryMinutes);
+            config.addProperty("historyExpiryMinutes", historyExpiryMinutes);
+            config.addProperty("maxEntries", maxEntries);
+            config.addProperty("maxWeightBytes", maxWeightBytes);
             try (Writer writer = Files.newBufferedWriter(CONFIG_FILE)) {
                 GSON.toJson(config, writer);
             }
@@ -1,22 +1,23 @@
 package com.x7t.namechecker;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
 
 public class NameCheckCommand {
     private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
@@ -26,44 +27,49 @@ public class NameCheckCommand {
     public static final String HEADER = "§8[§bx7t Name Checker§8]";
     public static final String SEPARATOR = "§8§m                                        ";
     
-    private static final String API_URL = "https://api.crafty.gg/api/v2/players/";
-    private static final String AVAILABILITY_API = "https://api.ashcon.app/mojang/v2/user/";
-    private static final String BEDROCK_API = "https://api.geysermc.org/v2/xbox/xuid/";
-    private static final Gson GSON = new Gson();
     
     // Nr. 3: ConcurrentHashMap für Thread-Safety
     private static final Map<String, Long> COOLDOWNS = new ConcurrentHashMap<>();
     private static final long COOLDOWN_MS = 3000;
+    private static final int MAX_SEARCH_RESULTS = 20;
     
-    private static final Map<String, Long> API_COOLDOWNS = new ConcurrentHashMap<>();
-    private static final long CRAFTY_API_COOLDOWN_MS = 1500;
-    private static final long ASHCON_API_COOLDOWN_MS = 2000;
-    private static final long GEYSER_API_COOLDOWN_MS = 1000;
+    private static final Pattern JAVA_NAME = Pattern.compile("[A-Za-z0-9_]{3,16}");
     
-    private static boolean checkApiCooldown(String apiName, long cooldownMs) {
-        long now = System.currentTimeMillis();
-        Long lastCall = API_COOLDOWNS.get(apiName);
-        if (lastCall != null && (now - lastCall) < cooldownMs) {
+    public static boolean isValidJavaName(String name) {
+        return JAVA_NAME.matcher(name).matches();
+    }
+    
+    private static boolean rejectInvalidName(FabricClientCommandSource source, String name, boolean allowUuid) {
+        if (isValidJavaName(name) || (allowUuid && NameCache.normalizeUuid(name) != null)) {
             return false;
         }
-        API_COOLDOWNS.put(apiName, now);
+        source.sendFeedback(Text.literal(PREFIX + "§e" + name + " §cis not a valid Minecraft username §7(3-16 letters, digits or _)"));
         return true;
     }
     
-    private static long getApiCooldownRemaining(String apiName, long cooldownMs) {
-        Long lastCall = API_COOLDOWNS.get(apiName);
-        if (lastCall == null) return 0;
-        long remaining = cooldownMs - (System.currentTimeMillis() - lastCall);
-        return Math.max(0, remaining);
+    // The cache finishes loading on the lookup executor; commands resume on the client thread
+    private static void runWhenReady(Runnable command) {
+        NameCache.whenReady().thenRun(() -> MinecraftClient.getInstance().execute(command));
     }
-
+    
     public static void execute(FabricClientCommandSource source, String playerName) {
+        if (rejectInvalidName(source, playerName, true)) {
+            return;
+        }
+        
+        // The cache is still loading right after startup; answer once it is in instead of missing
+        if (!NameCache.isReady()) {
+            source.sendFeedback(Text.literal(PREFIX + "§7Loading cache..."));
+            runWhenReady(() -> execute(source, playerName));
+            return;
+        }
+        
         // Nr. 10: Offline-Modus Check
         if (NameCache.isOfflineMode()) {
             NameCache.CachedPlayer cached = NameCache.getCachedOffline(playerName);
-            if (cached != null && cached.data != null) {
+            if (cached != null && cached.profile != null) {
                 source.sendFeedback(Text.literal(PREFIX + "§eOffline mode - using cached data..."));
-                displayPlayerInfo(source, cached.data);
+                displayPlayerInfo(source, cached.profile);
                 source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(cached.timestamp) + " ago)"));
                 return;
             } else {
@@ -72,6 +78,32 @@ public class NameCheckCommand {
             }
         }
         
+        // Fresh and stale entries are shown immediately; stale ones are refreshed in the background
+        NameCache.CachedPlayer cachedEntry = NameCache.getCachedOrStale(playerName);
+        if (cachedEntry != null && cachedEntry.profile != null) {
+            displayPlayerInfo(source, cachedEntry.profile);
+            if (cachedEntry.isExpired()) {
+                source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(cachedEntry.timestamp) + " ago, refreshing...)"));
+            } else if (cachedEntry.isVolatileExpired() && NameCache.isRefreshing(playerName)) {
+                source.sendFeedback(Text.literal("§7§o(Availability checked " + getTimeAgo(cachedEntry.volatileTimestamp) + " ago, refreshing...)"));
+            }
+            return;
+        }
+        
+        // Recently reported as nonexistent: no request and no cooldown
+        if (NameCache.isKnownNotFound(playerName)) {
+            source.sendFeedback(Text.literal(PREFIX + "§cPlayer not found §7§o(checked recently)"));
+            return;
+        }
+        
+        // Imported dumps answer a UUID or current name right away; the live profile is fetched in the background
+        NameCache.CachedPlayer imported = NameCache.getImported(playerName);
+        if (imported != null) {
+            displayPlayerInfo(source, imported.profile);
+            source.sendFeedback(Text.literal("§7§o(From imported dataset, " + getTimeAgo(imported.timestamp) + " old, refreshing...)"));
+            return;
+        }
+        
         final String nameToCheck = playerName;
         String playerId = source.getPlayer().getUuidAsString();
         long currentTime = System.currentTimeMillis();
@@ -80,12 +112,6 @@ public class NameCheckCommand {
             long lastUse = COOLDOWNS.get(playerId);
             long remaining = COOLDOWN_MS - (currentTime - lastUse);
             if (remaining > 0) {
-                NameCache.CachedPlayer cached = NameCache.getCached(nameToCheck);
-                if (cached != null && cached.data != null) {
-                    source.sendFeedback(Text.literal(PREFIX + "§7Using cached data..."));
-                    displayPlayerInfo(source, cached.data);
-                    return;
-                }
                 source.sendFeedback(Text.literal(PREFIX + "§cPlease wait §e" + String.format("%.1f", remaining / 1000.0) + "s §cbefore checking again."));
                 return;
             }
@@ -94,22 +120,14 @@ public class NameCheckCommand {
 
         source.sendFeedback(Text.literal(PREFIX + "§7Checking name history for §e" + nameToCheck + "§7..."));
 
-        CompletableFuture.runAsync(() -> {
-            if (!checkApiCooldown("crafty", CRAFTY_API_COOLDOWN_MS)) {
-                long remaining = getApiCooldownRemaining("crafty", CRAFTY_API_COOLDOWN_MS);
-                try { Thread.sleep(remaining); } catch (InterruptedException e) {
-                    LOGGER.debug("API cooldown sleep interrupted"); // Nr. 7: Logging
-                    Thread.currentThread().interrupt();
-                }
-            }
-            
+        submitLookup(source, () -> {
             try {
-                String response = fetchPlayerData(nameToCheck);
+                NameApi.ProfileResponse response = fetchAndCache(nameToCheck).join();
                 if (response == null) {
                     NameCache.CachedPlayer cached = NameCache.getCachedOffline(nameToCheck);
-                    if (cached != null && cached.data != null) {
+                    if (cached != null && cached.profile != null) {
                         source.sendFeedback(Text.literal(PREFIX + "§eAPI unavailable, using cached data..."));
-                        displayPlayerInfo(source, cached.data);
+                        displayPlayerInfo(source, cached.profile);
                         source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(cached.timestamp) + " ago)"));
                         return;
                     }
@@ -118,14 +136,12 @@ public class NameCheckCommand {
                     return;
                 }
 
-                JsonObject json = GSON.fromJson(response, JsonObject.class);
-
-                if (!json.has("success") || !json.get("success").getAsBoolean()) {
-                    String message = json.has("message") ? json.get("message").getAsString() : "Player not found";
+                if (!response.success) {
+                    String message = response.message != null ? response.message : "Player not found";
                     NameCache.CachedPlayer cached = NameCache.getCachedOffline(nameToCheck);
-                    if (cached != null && cached.data != null) {
+                    if (cached != null && cached.profile != null) {
                         source.sendFeedback(Text.literal(PREFIX + "§ePlayer not found, showing cached data..."));
-                        displayPlayerInfo(source, cached.data);
+                        displayPlayerInfo(source, cached.profile);
                         source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(cached.timestamp) + " ago)"));
                         return;
                     }
@@ -133,24 +149,19 @@ public class NameCheckCommand {
                     return;
                 }
 
-                if (!json.has("data") || json.get("data").isJsonNull()) {
+                if (response.profile == null) {
                     source.sendFeedback(Text.literal(PREFIX + "§cPlayer not found"));
                     return;
                 }
 
-                JsonObject data = json.getAsJsonObject("data");
-                
-                String uuid = data.has("uuid") ? data.get("uuid").getAsString() : null;
-                NameCache.cachePlayer(nameToCheck, uuid, data, false);
-                
-                displayPlayerInfo(source, data);
+                displayPlayerInfo(source, response.profile);
 
             } catch (Exception e) {
                 LOGGER.error("Error checking player {}: {}", nameToCheck, e.getMessage()); // Nr. 7
                 NameCache.CachedPlayer cached = NameCache.getCachedOffline(nameToCheck);
-                if (cached != null && cached.data != null) {
+                if (cached != null && cached.profile != null) {
                     source.sendFeedback(Text.literal(PREFIX + "§eError occurred, using cached data..."));
-                    displayPlayerInfo(source, cached.data);
+                    displayPlayerInfo(source, cached.profile);
                     source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(cached.timestamp) + " ago)"));
                     return;
                 }
@@ -160,6 +171,20 @@ public class NameCheckCommand {
     }
 
     public static void checkAvailability(FabricClientCommandSource source, String name) {
+        if (rejectInvalidName(source, name, false)) {
+            return;
+        }
+        
+        // Recently checked by a lookup, the watchlist or this command: no request and no cooldown
+        AvailabilityCache.Entry cached = AvailabilityCache.get(name);
+        if (cached != null) {
+            displayAvailability(source, name, cached.availability);
+            source.sendFeedback(Text.literal(cached.hint
+                ? "§7§o(From a profile looked up " + getTimeAgo(cached.timestamp) + " ago)"
+                : "§7§o(Checked " + getTimeAgo(cached.timestamp) + " ago)"));
+            return;
+        }
+        
         String playerId = source.getPlayer().getUuidAsString();
         long currentTime = System.currentTimeMillis();
 
@@ -175,61 +200,62 @@ public class NameCheckCommand {
 
         source.sendFeedback(Text.literal(PREFIX + "§7Checking availability for §e" + name + "§7..."));
 
-        CompletableFuture.runAsync(() -> {
-            if (!checkApiCooldown("ashcon", ASHCON_API_COOLDOWN_MS)) {
-                long remaining = getApiCooldownRemaining("ashcon", ASHCON_API_COOLDOWN_MS);
-                try { Thread.sleep(remaining); } catch (InterruptedException e) {
-                    LOGGER.debug("API cooldown sleep interrupted");
-                    Thread.currentThread().interrupt();
-                }
-            }
-            
+        submitLookup(source, () -> {
             try {
-                URI uri = new URI(AVAILABILITY_API + name);
-                HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-                connection.setRequestMethod("GET");
-                connection.setRequestProperty("User-Agent", "x7t-name-checker/1.0");
-                connection.setConnectTimeout(10000);
-                connection.setReadTimeout(10000);
-
-                int responseCode = connection.getResponseCode();
-
-                source.sendFeedback(Text.literal(SEPARATOR));
-                source.sendFeedback(Text.literal(HEADER));
-                source.sendFeedback(Text.literal(""));
-                source.sendFeedback(Text.literal("§7Name: §e" + name));
-
-                if (responseCode == 200) {
-                    source.sendFeedback(Text.literal("§7Status: §cTaken"));
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
-                    }
-                    reader.close();
-
-                    JsonObject json = GSON.fromJson(response.toString(), JsonObject.class);
-                    if (json.has("username")) {
-                        source.sendFeedback(Text.literal("§7Current Owner: §a" + json.get("username").getAsString()));
-                    }
-                } else if (responseCode == 404 || responseCode == 204) {
-                    source.sendFeedback(Text.literal("§7Status: §aAvailable!"));
-                    source.sendFeedback(Text.literal("§7This name can be claimed."));
-                } else {
-                    source.sendFeedback(Text.literal("§7Status: §eUnknown"));
-                }
-
-                source.sendFeedback(Text.literal(SEPARATOR));
-
+                displayAvailability(source, name, NameApi.fetchAvailability(name).join());
             } catch (Exception e) {
-                LOGGER.error("Error checking availability for {}: {}", name, e.getMessage());
-                source.sendFeedback(Text.literal(PREFIX + "§cError: " + e.getMessage()));
+                Throwable cause = HttpTransport.unwrap(e);
+                LOGGER.error("Error checking availability for {}: {}", name, cause.getMessage());
+                source.sendFeedback(Text.literal(PREFIX + "§cError: " + cause.getMessage()));
             }
         });
     }
 
+    private static void displayAvailability(FabricClientCommandSource source, String name, NameApi.Availability result) {
+        source.sendFeedback(Text.literal(SEPARATOR));
+        source.sendFeedback(Text.literal(HEADER));
+        source.sendFeedback(Text.literal(""));
+        source.sendFeedback(Text.literal("§7Name: §e" + name));
+
+        if (result.isTaken()) {
+            source.sendFeedback(Text.literal("§7Status: §cTaken"));
+            if (result.owner != null) {
+                source.sendFeedback(Text.literal("§7Current Owner: §a" + result.owner));
+            }
+        } else if (result.isAvailable()) {
+            source.sendFeedback(Text.literal("§7Status: §aAvailable!"));
+            source.sendFeedback(Text.literal("§7This name can be claimed."));
+        } else {
+            source.sendFeedback(Text.literal("§7Status: §eUnknown"));
+        }
+
+        source.sendFeedback(Text.literal(SEPARATOR));
+    }
+
     public static void checkBedrock(FabricClientCommandSource source, String gamertag) {
+        if (!NameCache.isReady()) {
+            source.sendFeedback(Text.literal(PREFIX + "§7Loading cache..."));
+            runWhenReady(() -> checkBedrock(source, gamertag));
+            return;
+        }
+        
+        // Known gamertag with cached (or known-missing) Floodgate history: answer without the network
+        BedrockCache.Entry known = BedrockCache.getXuid(gamertag);
+        if (known != null && showCachedBedrock(source, known, false)) {
+            return;
+        }
+        
+        if (NameCache.isOfflineMode()) {
+            BedrockCache.Entry offline = BedrockCache.getXuidOffline(gamertag);
+            if (offline != null) {
+                source.sendFeedback(Text.literal(PREFIX + "§eOffline mode - using cached data..."));
+                showCachedBedrock(source, offline, true);
+            } else {
+                source.sendFeedback(Text.literal(PREFIX + "§cOffline mode - no cached data available"));
+            }
+            return;
+        }
+        
         String playerId = source.getPlayer().getUuidAsString();
         long currentTime = System.currentTimeMillis();
 
@@ -245,154 +271,37 @@ public class NameCheckCommand {
 
         source.sendFeedback(Text.literal(PREFIX + "§7Checking Bedrock player §e" + gamertag + "§7..."));
 
-        CompletableFuture.runAsync(() -> {
-            if (!checkApiCooldown("geyser", GEYSER_API_COOLDOWN_MS)) {
-                long remaining = getApiCooldownRemaining("geyser", GEYSER_API_COOLDOWN_MS);
-                try { Thread.sleep(remaining); } catch (InterruptedException e) {
-                    LOGGER.debug("API cooldown sleep interrupted");
-                    Thread.currentThread().interrupt();
-                }
-            }
-            
+        submitLookup(source, () -> {
             try {
-                String encodedGamertag = java.net.URLEncoder.encode(gamertag, "UTF-8");
-                String xuid = null;
-                boolean found = false;
-                
-                try {
-                    URI uri = new URI(BEDROCK_API + encodedGamertag);
-                    HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-                    connection.setRequestMethod("GET");
-                    connection.setRequestProperty("User-Agent", "x7t-name-checker/1.0");
-                    connection.setRequestProperty("Accept", "application/json");
-                    connection.setConnectTimeout(5000);
-                    connection.setReadTimeout(5000);
-
-                    int responseCode = connection.getResponseCode();
-                    
-                    if (responseCode == 200) {
-                        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                        StringBuilder response = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            response.append(line);
-                        }
-                        reader.close();
-                        xuid = response.toString().replace("\"", "").trim();
-                        if (xuid != null && !xuid.isEmpty() && !xuid.equals("null")) {
-                            found = true;
-                        }
+                String xuid = known != null ? known.xuid : BedrockCache.resolve(gamertag).join();
+                if (xuid == null) {
+                    BedrockCache.Entry fallback = BedrockCache.getXuidOffline(gamertag);
+                    if (fallback != null) {
+                        source.sendFeedback(Text.literal(PREFIX + "§eAPI unavailable, using cached data..."));
+                        showCachedBedrock(source, fallback, true);
+                        return;
                     }
-                } catch (Exception e) {
-                    LOGGER.debug("Bedrock API call failed: {}", e.getMessage()); // Nr. 7
+                    displayBedrock(source, gamertag, null, null, false);
+                    return;
                 }
 
-                source.sendFeedback(Text.literal(SEPARATOR));
-                source.sendFeedback(Text.literal(HEADER + " §a(Bedrock)"));
-                source.sendFeedback(Text.literal(""));
-
-                if (found && xuid != null) {
-                    Text nameText = Text.literal("§7Gamertag: §a" + gamertag)
-                        .setStyle(Style.EMPTY
-                            .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy")))
-                            .withClickEvent(TextEventCompat.copyToClipboard(gamertag)));
-                    source.sendFeedback(nameText);
-                    
-                    Text xuidText = Text.literal("§7XUID: §e" + xuid)
-                        .setStyle(Style.EMPTY
-                            .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy XUID")))
-                            .withClickEvent(TextEventCompat.copyToClipboard(xuid)));
-                    source.sendFeedback(xuidText);
-                    
-                    String floodgateUuid = null;
+                String floodgateUuid = BedrockCache.floodgateUuid(xuid);
+                NameApi.ProfileResponse history = null;
+                boolean historyFailed = false;
+                if (floodgateUuid != null) {
                     try {
-                        if (xuid == null || xuid.isEmpty() || !xuid.matches("\\d+")) {
-                            throw new IllegalArgumentException("Invalid XUID format");
-                        }
-                        long xuidLong = Long.parseLong(xuid);
-                        if (xuidLong <= 0) {
-                            throw new IllegalArgumentException("XUID must be positive");
-                        }
-                        floodgateUuid = String.format("00000000-0000-0000-%04x-%012x", 
-                            (xuidLong >> 48) & 0xFFFF, xuidLong & 0xFFFFFFFFFFFFL);
-                        Text uuidText = Text.literal("§7Floodgate UUID: §e" + floodgateUuid)
-                            .setStyle(Style.EMPTY
-                                .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy UUID")))
-                                .withClickEvent(TextEventCompat.copyToClipboard(floodgateUuid)));
-                        source.sendFeedback(uuidText);
-                    } catch (IllegalArgumentException e) {
-                        source.sendFeedback(Text.literal("§7XUID (raw): §e" + xuid + " §8(§cInvalid format§8)"));
-                    }
-                    
-                    source.sendFeedback(Text.literal(""));
-                    if (floodgateUuid != null) {
-                        try {
-                            String historyResponse = fetchPlayerData(floodgateUuid);
-                            if (historyResponse != null) {
-                                JsonObject historyJson = GSON.fromJson(historyResponse, JsonObject.class);
-                                if (historyJson.has("success") && historyJson.get("success").getAsBoolean() 
-                                    && historyJson.has("data") && !historyJson.get("data").isJsonNull()) {
-                                    JsonObject historyData = historyJson.getAsJsonObject("data");
-                                    if (historyData.has("usernames") && historyData.get("usernames").isJsonArray()) {
-                                        JsonArray usernames = historyData.getAsJsonArray("usernames");
-                                        if (usernames.size() > 0) {
-                                            source.sendFeedback(Text.literal("§7Name History §8(§f" + usernames.size() + "§8):"));
-                                            for (int i = 0; i < usernames.size(); i++) {
-                                                JsonElement element = usernames.get(i);
-                                                if (element.isJsonObject()) {
-                                                    JsonObject entry = element.getAsJsonObject();
-                                                    String name = entry.has("username") ? entry.get("username").getAsString() : "Unknown";
-                                                    String changedAt = "";
-                                                    String hoverInfo = "§7Name: §f" + name;
-
-                                                    if (entry.has("changed_at") && !entry.get("changed_at").isJsonNull()) {
-                                                        changedAt = " §8(§7" + entry.get("changed_at").getAsString() + "§8)";
-                                                        hoverInfo += "\n§7Changed: §e" + entry.get("changed_at").getAsString();
-                                                    } else if (i == usernames.size() - 1) {
-                                                        changedAt = " §8(§7Original§8)";
-                                                        hoverInfo += "\n§7Original name";
-                                                    }
-
-                                                    hoverInfo += "\n\n§8Click to copy";
-
-                                                    Text nameEntry = Text.literal("  §8» §f" + name + changedAt)
-                                                        .setStyle(Style.EMPTY
-                                                            .withHoverEvent(TextEventCompat.showText(Text.literal(hoverInfo)))
-                                                            .withClickEvent(TextEventCompat.copyToClipboard(name)));
-                                                    source.sendFeedback(nameEntry);
-                                                }
-                                            }
-                                        } else {
-                                            source.sendFeedback(Text.literal("§7Name History: §eNo history available"));
-                                        }
-                                    } else {
-                                        source.sendFeedback(Text.literal("§7Name History: §eNo history available"));
-                                    }
-                                } else {
-                                    source.sendFeedback(Text.literal("§7Name History: §eNot tracked yet"));
-                                }
-                            } else {
-                                source.sendFeedback(Text.literal("§7Name History: §eNot tracked yet"));
+                        history = fetchAndCache(floodgateUuid).join();
+                        if (history == null) {
+                            NameCache.CachedPlayer cached = NameCache.getCachedOffline(floodgateUuid);
+                            if (cached != null && cached.profile != null) {
+                                history = new NameApi.ProfileResponse(true, null, cached.profile);
                             }
-                        } catch (Exception e) {
-                            source.sendFeedback(Text.literal("§7Name History: §cUnavailable"));
                         }
-                    } else {
-                        source.sendFeedback(Text.literal("§7Name History: §eXbox does not provide public name history"));
+                    } catch (Exception e) {
+                        historyFailed = true;
                     }
-                    
-                    source.sendFeedback(Text.literal(""));
-                    source.sendFeedback(Text.literal("§7Status: §aBedrock Account Found!"));
-                    source.sendFeedback(Text.literal("§7Platform: §bXbox/Bedrock"));
-                } else {
-                    source.sendFeedback(Text.literal("§7Gamertag: §e" + gamertag));
-                    source.sendFeedback(Text.literal(""));
-                    source.sendFeedback(Text.literal("§7Status: §cNot Found / API Unavailable"));
-                    source.sendFeedback(Text.literal("§7The Bedrock account was not found or the API is currently unavailable."));
-                    source.sendFeedback(Text.literal("§7Try again later or verify the gamertag is correct."));
                 }
-
-                source.sendFeedback(Text.literal(SEPARATOR));
+                displayBedrock(source, gamertag, xuid, history, historyFailed);
 
             } catch (Exception e) {
                 LOGGER.error("Error checking Bedrock player {}: {}", gamertag, e.getMessage());
@@ -401,154 +310,286 @@ public class NameCheckCommand {
         });
     }
 
-    private static final int MAX_RETRIES = 3;
-    private static final long RETRY_DELAY_MS = 1000;
-
-    private static String fetchPlayerData(String playerName) {
-        return fetchWithRetry(API_URL + playerName, MAX_RETRIES);
+    // Shows a Bedrock result from the caches; returns false when the history still has to be fetched
+    private static boolean showCachedBedrock(FabricClientCommandSource source, BedrockCache.Entry entry, boolean offline) {
+        String floodgateUuid = BedrockCache.floodgateUuid(entry.xuid);
+        NameApi.ProfileResponse history = null;
+        long timestamp = entry.timestamp;
+        if (floodgateUuid != null) {
+            NameCache.CachedPlayer cached = offline ? NameCache.getCachedOffline(floodgateUuid) : NameCache.getCachedOrStale(floodgateUuid);
+            if (cached != null && cached.profile != null) {
+                history = new NameApi.ProfileResponse(true, null, cached.profile);
+                timestamp = Math.min(timestamp, cached.timestamp);
+            } else if (!offline && !NameCache.isKnownNotFound(floodgateUuid)) {
+                return false;
+            }
+        }
+        displayBedrock(source, entry.gamertag, entry.xuid, history, false);
+        source.sendFeedback(Text.literal("§7§o(Cached " + getTimeAgo(timestamp) + " ago)"));
+        return true;
     }
 
-    private static String fetchWithRetry(String url, int maxRetries) {
-        Exception lastException = null;
-        
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                String result = doFetch(url);
-                if (result != null) {
-                    return result;
-                }
-            } catch (Exception e) {
-                lastException = e;
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(RETRY_DELAY_MS * attempt);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
+    private static void displayBedrock(FabricClientCommandSource source, String gamertag, String xuid,
+                                       NameApi.ProfileResponse historyResponse, boolean historyFailed) {
+        source.sendFeedback(Text.literal(SEPARATOR));
+        source.sendFeedback(Text.literal(HEADER + " §a(Bedrock)"));
+        source.sendFeedback(Text.literal(""));
+
+        if (xuid != null) {
+            Text nameText = Text.literal("§7Gamertag: §a" + gamertag)
+                .setStyle(Style.EMPTY
+                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy")))
+                    .withClickEvent(TextEventCompat.copyToClipboard(gamertag)));
+            source.sendFeedback(nameText);
+            
+            Text xuidText = Text.literal("§7XUID: §e" + xuid)
+                .setStyle(Style.EMPTY
+                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy XUID")))
+                    .withClickEvent(TextEventCompat.copyToClipboard(xuid)));
+            source.sendFeedback(xuidText);
+            
+            String floodgateUuid = BedrockCache.floodgateUuid(xuid);
+            if (floodgateUuid != null) {
+                Text uuidText = Text.literal("§7Floodgate UUID: §e" + floodgateUuid)
+                    .setStyle(Style.EMPTY
+                        .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy UUID")))
+                        .withClickEvent(TextEventCompat.copyToClipboard(floodgateUuid)));
+                source.sendFeedback(uuidText);
+            } else {
+                source.sendFeedback(Text.literal("§7XUID (raw): §e" + xuid + " §8(§cInvalid format§8)"));
+            }
+            
+            source.sendFeedback(Text.literal(""));
+            if (floodgateUuid == null) {
+                source.sendFeedback(Text.literal("§7Name History: §eXbox does not provide public name history"));
+            } else if (historyFailed) {
+                source.sendFeedback(Text.literal("§7Name History: §cUnavailable"));
+            } else if (historyResponse == null || !historyResponse.success || historyResponse.profile == null) {
+                source.sendFeedback(Text.literal("§7Name History: §eNot tracked yet"));
+            } else {
+                PlayerProfile history = historyResponse.profile;
+                if (history.historySize() > 0) {
+                    source.sendFeedback(Text.literal("§7Name History §8(§f" + history.historySize() + "§8):"));
+                    for (int i = 0; i < history.historySize(); i++) {
+                        String name = history.historyName(i) != null ? history.historyName(i) : "Unknown";
+                        String changedAt = "";
+                        String hoverInfo = "§7Name: §f" + name;
+
+                        if (history.changedAt(i) != PlayerProfile.UNKNOWN_TIME) {
+                            String time = PlayerProfile.formatTime(history.changedAt(i));
+                            changedAt = " §8(§7" + time + "§8)";
+                            hoverInfo += "\n§7Changed: §e" + time;
+                        } else if (i == history.historySize() - 1) {
+                            changedAt = " §8(§7Original§8)";
+                            hoverInfo += "\n§7Original name";
+                        }
+
+                        hoverInfo += "\n\n§8Click to copy";
+
+                        Text nameEntry = Text.literal("  §8» §f" + name + changedAt)
+                            .setStyle(Style.EMPTY
+                                .withHoverEvent(TextEventCompat.showText(Text.literal(hoverInfo)))
+                                .withClickEvent(TextEventCompat.copyToClipboard(name)));
+                        source.sendFeedback(nameEntry);
                     }
+                } else {
+                    source.sendFeedback(Text.literal("§7Name History: §eNo history available"));
                 }
             }
+            
+            source.sendFeedback(Text.literal(""));
+            source.sendFeedback(Text.literal("§7Status: §aBedrock Account Found!"));
+            source.sendFeedback(Text.literal("§7Platform: §bXbox/Bedrock"));
+        } else {
+            source.sendFeedback(Text.literal("§7Gamertag: §e" + gamertag));
+            source.sendFeedback(Text.literal(""));
+            source.sendFeedback(Text.literal("§7Status: §cNot Found / API Unavailable"));
+            source.sendFeedback(Text.literal("§7The Bedrock account was not found or the API is currently unavailable."));
+            source.sendFeedback(Text.literal("§7Try again later or verify the gamertag is correct."));
         }
-        return null;
+
+        source.sendFeedback(Text.literal(SEPARATOR));
     }
 
-    private static String doFetch(String urlString) throws Exception {
-        URI uri = new URI(urlString);
-        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("User-Agent", "x7t-name-checker/1.0");
-        connection.setRequestProperty("Accept", "application/json");
-        connection.setConnectTimeout(10000);
-        connection.setReadTimeout(10000);
-
-        int responseCode = connection.getResponseCode();
-            if (responseCode != 200) {
-                if (connection.getErrorStream() != null) {
-                    BufferedReader errorReader = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
-                    StringBuilder errorResponse = new StringBuilder();
-                    String line;
-                    while ((line = errorReader.readLine()) != null) {
-                        errorResponse.append(line);
-                    }
-                    errorReader.close();
-                    return errorResponse.toString();
-                }
-                return "{\"success\":false,\"message\":\"HTTP " + responseCode + "\"}";
+    /**
+     * Lists cached accounts that held {@code name}; with a date (yyyy-MM-dd, UTC) only the holder on that day.
+     * Answered from the history index only, so it works offline and never counts against the cooldown.
+     */
+    public static void showOwners(FabricClientCommandSource source, String name, String date) {
+        if (!NameCache.isReady()) {
+            source.sendFeedback(Text.literal(PREFIX + "§7Loading cache..."));
+            runWhenReady(() -> showOwners(source, name, date));
+            return;
+        }
+        long at = 0;
+        if (date != null) {
+            try {
+                at = LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                source.sendFeedback(Text.literal(PREFIX + "§cInvalid date §e" + date + " §7(use yyyy-MM-dd)"));
+                return;
             }
-
-        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
         }
-        reader.close();
-        return response.toString();
-    }
 
-    private static void displayPlayerInfo(FabricClientCommandSource source, JsonObject data) {
         source.sendFeedback(Text.literal(SEPARATOR));
         source.sendFeedback(Text.literal(HEADER));
         source.sendFeedback(Text.literal(""));
+        source.sendFeedback(Text.literal("§7Name: §e" + name));
 
-        if (data.has("username") && !data.get("username").isJsonNull()) {
-            String username = data.get("username").getAsString();
-            Text nameText = Text.literal("§7Current Name: §a" + username)
-                .setStyle(Style.EMPTY
-                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy name")))
-                    .withClickEvent(TextEventCompat.copyToClipboard(username)));
-            source.sendFeedback(nameText);
+        if (date != null) {
+            NameHistoryIndex.Interval owner = NameCache.getOwnerAt(name, at);
+            if (owner != null) {
+                source.sendFeedback(Text.literal("§7Held on §e" + date + "§7 by:"));
+                source.sendFeedback(ownerLine(owner));
+            } else {
+                source.sendFeedback(Text.literal("§7Held on §e" + date + "§7: §8unknown"));
+            }
+        } else {
+            List<NameHistoryIndex.Interval> owners = NameCache.getOwners(name);
+            if (owners.isEmpty()) {
+                source.sendFeedback(Text.literal("§7Known Owners: §8none cached"));
+            } else {
+                source.sendFeedback(Text.literal("§7Known Owners §8(§f" + owners.size() + "§8):"));
+                for (NameHistoryIndex.Interval owner : owners) {
+                    source.sendFeedback(ownerLine(owner));
+                }
+            }
         }
 
-        if (data.has("uuid") && !data.get("uuid").isJsonNull()) {
-            String uuid = data.get("uuid").getAsString();
-            Text uuidText = Text.literal("§7UUID: §e" + uuid)
-                .setStyle(Style.EMPTY
-                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy UUID")))
-                    .withClickEvent(TextEventCompat.copyToClipboard(uuid)));
-            source.sendFeedback(uuidText);
-            
-            String username = data.has("username") ? data.get("username").getAsString() : null;
-            if (username != null) {
-                String namemcUrl = "https://namemc.com/profile/" + username;
-                Text skinLink = Text.literal("§7Skin: §b[View on NameMC]")
-                    .setStyle(Style.EMPTY
-                        .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to open NameMC profile\n§8" + namemcUrl)))
-                        .withClickEvent(TextEventCompat.openUrl(namemcUrl)));
-                source.sendFeedback(skinLink);
-            }
+        source.sendFeedback(Text.literal(""));
+        source.sendFeedback(Text.literal("§7§oBased on cached name histories only"));
+        source.sendFeedback(Text.literal(SEPARATOR));
+    }
+
+    public static void search(FabricClientCommandSource source, String fragment) {
+        if (!NameCache.isReady()) {
+            source.sendFeedback(Text.literal(PREFIX + "§7Loading cache..."));
+            runWhenReady(() -> search(source, fragment));
+            return;
         }
+        // Short fragments scan every indexed name, so the search and owner lookups stay off the client thread
+        submitLookup(source, () -> {
+            List<TrigramIndex.Match> matches = NameCache.search(fragment, MAX_SEARCH_RESULTS);
+            List<Text> lines = new ArrayList<>();
+            lines.add(Text.literal(SEPARATOR));
+            lines.add(Text.literal(HEADER));
+            lines.add(Text.literal(""));
+            lines.add(Text.literal("§7Search: §e" + fragment));
+            if (matches.isEmpty()) {
+                lines.add(Text.literal("§7Matches: §8none cached"));
+            } else {
+                lines.add(Text.literal("§7Matches §8(§f" + matches.size() + "§8):"));
+                for (TrigramIndex.Match match : matches) {
+                    lines.add(searchLine(match));
+                }
+            }
+            lines.add(Text.literal(""));
+            lines.add(Text.literal("§7§oSearched " + NameCache.getSearchableNames() + " names of profiles in memory"
+                + " (not older cache entries or imported datasets)"));
+            lines.add(Text.literal(SEPARATOR));
+            MinecraftClient.getInstance().execute(() -> lines.forEach(source::sendFeedback));
+        });
+    }
 
-        if (data.has("usernames") && data.get("usernames").isJsonArray()) {
-            JsonArray usernames = data.getAsJsonArray("usernames");
-            source.sendFeedback(Text.literal(""));
-            source.sendFeedback(Text.literal("§7Name History §8(§f" + usernames.size() + "§8):"));
-
-            for (int i = 0; i < usernames.size(); i++) {
-                JsonElement element = usernames.get(i);
-                if (element.isJsonObject()) {
-                    JsonObject entry = element.getAsJsonObject();
-                    String name = entry.has("username") ? entry.get("username").getAsString() : "Unknown";
-                    String changedAt = "";
-                    String hoverInfo = "§7Name: §f" + name;
-
-                    if (entry.has("changed_at") && !entry.get("changed_at").isJsonNull()) {
-                        changedAt = " §8(§7" + entry.get("changed_at").getAsString() + "§8)";
-                        hoverInfo += "\n§7Changed: §e" + entry.get("changed_at").getAsString();
-                    } else if (i == usernames.size() - 1) {
-                        changedAt = " §8(§7Original§8)";
-                        hoverInfo += "\n§7Original name";
-                    }
+    private static Text searchLine(TrigramIndex.Match match) {
+        List<NameHistoryIndex.Interval> owners = NameCache.getOwners(match.name());
+        String holder = "";
+        if (!owners.isEmpty()) {
+            NameHistoryIndex.Interval latest = owners.get(owners.size() - 1);
+            String current = NameCache.getCurrentName(latest.key());
+            String label = current != null ? current : latest.key();
+            holder = latest.isCurrent() ? " §8(§7held by §a" + label + "§8)" : " §8(§7formerly §f" + label + "§8)";
+        }
+        String similar = match.substring() ? "" : " §8~" + Math.round(match.similarity() * 100) + "%";
+        return Text.literal("  §8» §e" + match.name() + holder + similar)
+            .setStyle(Style.EMPTY
+                .withHoverEvent(TextEventCompat.showText(Text.literal("§8Click to view who held this name")))
+                .withClickEvent(TextEventCompat.runCommand("/namecheck owners " + match.name())));
+    }
 
-                    if (entry.has("available") && !entry.get("available").isJsonNull()) {
-                        boolean available = entry.get("available").getAsBoolean();
-                        hoverInfo += "\n§7Available: " + (available ? "§aYes" : "§cNo");
-                    }
+    private static Text ownerLine(NameHistoryIndex.Interval owner) {
+        String current = NameCache.getCurrentName(owner.key());
+        String label = current != null ? current : owner.key();
+        String from = owner.heldFrom() == NameHistoryIndex.UNKNOWN_START ? "Original" : formatDate(owner.heldFrom());
+        String until = owner.isCurrent() ? "now" : formatDate(owner.heldUntil());
+        return Text.literal("  §8» §a" + label + " §8(§7" + from + " §8- §7" + until + "§8)")
+            .setStyle(Style.EMPTY
+                .withHoverEvent(TextEventCompat.showText(Text.literal("§7UUID: §f" + owner.key() + "\n\n§8Click to view profile")))
+                .withClickEvent(TextEventCompat.runCommand("/namecheck " + owner.key())));
+    }
 
-                    hoverInfo += "\n\n§8Click to copy";
+    private static String formatDate(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC).toLocalDate().toString();
+    }
 
-                    Text nameEntry = Text.literal("  §8» §f" + name + changedAt)
-                        .setStyle(Style.EMPTY
-                            .withHoverEvent(TextEventCompat.showText(Text.literal(hoverInfo)))
-                            .withClickEvent(TextEventCompat.copyToClipboard(name)));
-                    source.sendFeedback(nameEntry);
+    /**
+     * Fetches a profile and stores successful results in {@link NameCache}; also used for background refreshes.
+     */
+    static CompletableFuture<NameApi.ProfileResponse> fetchAndCache(String name) {
+        return NameApi.fetchProfile(name).thenApply(response -> {
+            if (response != null && response.success && response.profile != null) {
+                NameCache.cachePlayer(name, response.profile, false);
+                // Floodgate histories list gamertags, not Java names
+                if (!BedrockCache.isFloodgateUuid(name)) {
+                    AvailabilityCache.recordProfile(response.profile);
                 }
+            } else if (response != null && response.isNotFound()) {
+                NameCache.cacheNotFound(name);
             }
-        } else {
-            source.sendFeedback(Text.literal(""));
-            source.sendFeedback(Text.literal("§7No name history available"));
-        }
+            return response;
+        });
+    }
 
-        if (data.has("created_at") && !data.get("created_at").isJsonNull()) {
-            source.sendFeedback(Text.literal(""));
-            source.sendFeedback(Text.literal("§7First Seen: §e" + data.get("created_at").getAsString()));
+    /**
+     * Whether {@code name} can be claimed, from {@link AvailabilityCache} or ashcon; {@code null} when unknown.
+     * Used by {@link NameCache} to refresh availability flags without refetching the profile.
+     */
+    static CompletableFuture<Boolean> checkAvailable(String name) {
+        // Not crafty's hints: those are the flags this refresh exists to re-check
+        AvailabilityCache.Entry cached = AvailabilityCache.getChecked(name, CacheStats.Source.INTERACTIVE);
+        CompletableFuture<NameApi.Availability> result = cached != null
+            ? CompletableFuture.completedFuture(cached.availability) : NameApi.fetchAvailability(name);
+        return result.thenApply(availability -> availability.isAvailable() ? Boolean.TRUE
+            : availability.isTaken() ? Boolean.FALSE : null);
+    }
+
+    private static void submitLookup(FabricClientCommandSource source, Runnable task) {
+        try {
+            LookupExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            source.sendFeedback(Text.literal(PREFIX + "§cToo many lookups in progress, try again shortly."));
         }
+    }
 
-        if (data.has("views_lifetime") && !data.get("views_lifetime").isJsonNull()) {
-            source.sendFeedback(Text.literal("§7Profile Views: §e" + data.get("views_lifetime").getAsInt()));
+    // Built once per profile version and sent as a single message; see ProfileRenderCache
+    private static void displayPlayerInfo(FabricClientCommandSource source, PlayerProfile profile) {
+        source.sendFeedback(ProfileRenderCache.render(profile, 1));
+    }
+
+    public static void showHistoryPage(FabricClientCommandSource source, String player, int page) {
+        if (!NameCache.isReady()) {
+            source.sendFeedback(Text.literal(PREFIX + "§7Loading cache..."));
+            runWhenReady(() -> showHistoryPage(source, player, page));
+            return;
+        }
+        NameCache.CachedPlayer cached = NameCache.peekHeap(player);
+        if (cached != null) {
+            sendHistoryPage(source, player, cached, page);
+            return;
         }
+        // Off-heap and dataset reads stay off the client thread
+        submitLookup(source, () -> {
+            NameCache.CachedPlayer stored = NameCache.peek(player);
+            MinecraftClient.getInstance().execute(() -> sendHistoryPage(source, player, stored, page));
+        });
+    }
 
-        source.sendFeedback(Text.literal(SEPARATOR));
+    private static void sendHistoryPage(FabricClientCommandSource source, String player, NameCache.CachedPlayer cached, int page) {
+        if (cached == null || cached.profile == null) {
+            source.sendFeedback(Text.literal(PREFIX + "§cNo cached profile for §e" + player));
+            return;
+        }
+        source.sendFeedback(ProfileRenderCache.render(cached.profile, page));
     }
     
     private static String getTimeAgo(long timestamp) {
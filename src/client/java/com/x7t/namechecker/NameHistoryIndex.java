@@ -0,0 +1,123 @@
+package com.x7t.namechecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over cached name histories: lowercase name -> who held it and when.
+ * Built from crafty {@code usernames[]} (newest first, {@code changed_at} marks when a name was taken),
+ * updated as profiles enter and leave {@link NameCache}. Lookups read an immutable per-name array,
+ * so they never block writers and work offline.
+ */
+public class NameHistoryIndex {
+    public static final long UNKNOWN_START = PlayerProfile.UNKNOWN_TIME;
+    public static final long STILL_HELD = Long.MAX_VALUE;
+
+    private static final Interval[] EMPTY = new Interval[0];
+    private static final Comparator<Interval> BY_START = Comparator.comparingLong(Interval::heldFrom);
+
+    private final Map<String, Interval[]> byName = new ConcurrentHashMap<>();
+
+    /**
+     * One account holding a name from {@code heldFrom} until {@code heldUntil} (epoch millis).
+     */
+    public record Interval(String key, String name, long heldFrom, long heldUntil) {
+        public boolean contains(long time) {
+            return time >= heldFrom && time < heldUntil;
+        }
+
+        public boolean isCurrent() {
+            return heldUntil == STILL_HELD;
+        }
+    }
+
+    public void add(String key, PlayerProfile profile) {
+        for (Interval interval : intervalsOf(key, profile)) {
+            byName.compute(interval.name().toLowerCase(), (name, existing) -> {
+                Interval[] base = existing == null ? EMPTY : without(existing, key, interval.heldFrom());
+                Interval[] updated = Arrays.copyOf(base, base.length + 1);
+                updated[base.length] = interval;
+                Arrays.sort(updated, BY_START);
+                return updated;
+            });
+        }
+    }
+
+    public void remove(String key, PlayerProfile profile) {
+        for (Interval interval : intervalsOf(key, profile)) {
+            byName.computeIfPresent(interval.name().toLowerCase(), (name, existing) -> {
+                Interval[] updated = without(existing, key, interval.heldFrom());
+                return updated.length == 0 ? null : updated;
+            });
+        }
+    }
+
+    public void clear() {
+        byName.clear();
+    }
+
+    /**
+     * Everyone known to have held {@code name}, oldest first.
+     */
+    public List<Interval> owners(String name) {
+        Interval[] intervals = byName.get(name.toLowerCase());
+        return intervals == null ? List.of() : List.of(intervals);
+    }
+
+    /**
+     * Who held {@code name} at {@code time} (epoch millis), or {@code null} if no cached history covers it.
+     */
+    public Interval ownerAt(String name, long time) {
+        Interval[] intervals = byName.get(name.toLowerCase());
+        if (intervals == null) {
+            return null;
+        }
+        for (int i = intervals.length - 1; i >= 0; i--) {
+            if (intervals[i].contains(time)) {
+                return intervals[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    private static Interval[] without(Interval[] intervals, String key, long heldFrom) {
+        int matches = 0;
+        for (Interval interval : intervals) {
+            if (interval.key().equals(key) && interval.heldFrom() == heldFrom) matches++;
+        }
+        if (matches == 0) {
+            return intervals;
+        }
+        Interval[] result = new Interval[intervals.length - matches];
+        int i = 0;
+        for (Interval interval : intervals) {
+            if (!(interval.key().equals(key) && interval.heldFrom() == heldFrom)) {
+                result[i++] = interval;
+            }
+        }
+        return result;
+    }
+
+    static List<Interval> intervalsOf(String key, PlayerProfile profile) {
+        List<Interval> intervals = new ArrayList<>(profile.historySize());
+        long heldUntil = STILL_HELD;
+        for (int i = 0; i < profile.historySize(); i++) {
+            long heldFrom = profile.changedAt(i);
+            if (profile.historyName(i) != null) {
+                intervals.add(new Interval(key, profile.historyName(i), heldFrom, heldUntil));
+            }
+            if (heldFrom != UNKNOWN_START) {
+                heldUntil = heldFrom;
+            }
+        }
+        return intervals;
+    }
+}
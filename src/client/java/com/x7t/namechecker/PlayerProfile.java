@@ -0,0 +1,242 @@
+package com.x7t.namechecker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Immutable crafty profile as the mod keeps it: the UUID as two longs, interned names,
+ * timestamps as epoch millis and the name history as parallel primitive arrays (newest first).
+ * Fields the mod does not use are dropped when decoding.
+ */
+public final class PlayerProfile {
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+    public static final long UNKNOWN_VIEWS = -1;
+
+    public static final byte AVAILABILITY_UNKNOWN = 0;
+    public static final byte AVAILABILITY_AVAILABLE = 1;
+    public static final byte AVAILABILITY_TAKEN = 2;
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final long[] NO_TIMES = new long[0];
+    private static final byte[] NO_FLAGS = new byte[0];
+
+    private final boolean hasUuid;
+    private final long uuidMost;
+    private final long uuidLeast;
+    private final String username;
+    private final long createdAt;
+    private final long views;
+    private final String[] names;
+    private final long[] changedAt;
+    private final byte[] availability;
+
+    public PlayerProfile(boolean hasUuid, long uuidMost, long uuidLeast, String username, long createdAt, long views,
+                         String[] names, long[] changedAt, byte[] availability) {
+        if (names.length != changedAt.length || names.length != availability.length) {
+            throw new IllegalArgumentException("Name history arrays differ in length");
+        }
+        this.hasUuid = hasUuid;
+        this.uuidMost = hasUuid ? uuidMost : 0;
+        this.uuidLeast = hasUuid ? uuidLeast : 0;
+        this.username = intern(username);
+        this.createdAt = createdAt;
+        this.views = views;
+        this.names = names.length == 0 ? NO_NAMES : names;
+        this.changedAt = changedAt.length == 0 ? NO_TIMES : changedAt;
+        this.availability = availability.length == 0 ? NO_FLAGS : availability;
+        for (int i = 0; i < this.names.length; i++) {
+            this.names[i] = intern(this.names[i]);
+        }
+    }
+
+    /**
+     * Profile from a dashed or undashed UUID string; a malformed UUID is treated as absent.
+     */
+    public static PlayerProfile of(String uuid, String username, long createdAt, long views,
+                                   String[] names, long[] changedAt, byte[] availability) {
+        UUID parsed = parseUuid(uuid);
+        return new PlayerProfile(parsed != null, parsed != null ? parsed.getMostSignificantBits() : 0,
+            parsed != null ? parsed.getLeastSignificantBits() : 0, username, createdAt, views, names, changedAt, availability);
+    }
+
+    public boolean hasUuid() {
+        return hasUuid;
+    }
+
+    public long uuidMost() {
+        return uuidMost;
+    }
+
+    public long uuidLeast() {
+        return uuidLeast;
+    }
+
+    /**
+     * Lowercase dashed UUID, or {@code null}.
+     */
+    public String uuid() {
+        return hasUuid ? new UUID(uuidMost, uuidLeast).toString() : null;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    public long views() {
+        return views;
+    }
+
+    public int historySize() {
+        return names.length;
+    }
+
+    // May be null when crafty listed an entry without a name
+    public String historyName(int index) {
+        return names[index];
+    }
+
+    public long changedAt(int index) {
+        return changedAt[index];
+    }
+
+    public byte availability(int index) {
+        return availability[index];
+    }
+
+    /**
+     * Rough retained heap size, used as the cache eviction weight.
+     */
+    public long estimateBytes() {
+        long bytes = 64 + stringBytes(username);
+        bytes += 16 + 4L * names.length + 16 + 8L * changedAt.length + 16 + availability.length;
+        for (String name : names) {
+            bytes += stringBytes(name);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    /**
+     * Reads the crafty {@code data} object (or a profile previously written by {@link #toJson()}).
+     * {@code fallbackUuid} is used when the object carries no UUID of its own.
+     */
+    public static PlayerProfile fromJson(JsonObject data, String fallbackUuid) {
+        String uuid = string(data, "uuid");
+        String username = string(data, "username");
+        String created = string(data, "created_at");
+        long views = data.has("views_lifetime") && !data.get("views_lifetime").isJsonNull()
+            ? data.get("views_lifetime").getAsLong() : UNKNOWN_VIEWS;
+
+        String[] names = NO_NAMES;
+        long[] changed = NO_TIMES;
+        byte[] flags = NO_FLAGS;
+        if (data.has("usernames") && data.get("usernames").isJsonArray()) {
+            JsonArray usernames = data.getAsJsonArray("usernames");
+            int count = 0;
+            for (JsonElement element : usernames) {
+                if (element.isJsonObject()) count++;
+            }
+            names = new String[count];
+            changed = new long[count];
+            flags = new byte[count];
+            int i = 0;
+            for (JsonElement element : usernames) {
+                if (!element.isJsonObject()) continue;
+                JsonObject entry = element.getAsJsonObject();
+                names[i] = string(entry, "username");
+                String changedAt = string(entry, "changed_at");
+                changed[i] = changedAt != null ? parseTime(changedAt) : UNKNOWN_TIME;
+                flags[i] = entry.has("available") && !entry.get("available").isJsonNull()
+                    ? availabilityOf(entry.get("available").getAsBoolean()) : AVAILABILITY_UNKNOWN;
+                i++;
+            }
+        }
+        return of(uuid != null ? uuid : fallbackUuid, username, created != null ? parseTime(created) : UNKNOWN_TIME,
+            views, names, changed, flags);
+    }
+
+    /**
+     * The profile in crafty's JSON shape, for the journal and legacy cache files.
+     */
+    public JsonObject toJson() {
+        JsonObject data = new JsonObject();
+        if (username != null) data.addProperty("username", username);
+        if (hasUuid) data.addProperty("uuid", uuid());
+        if (createdAt != UNKNOWN_TIME) data.addProperty("created_at", formatTime(createdAt));
+        if (views != UNKNOWN_VIEWS) data.addProperty("views_lifetime", views);
+        if (names.length > 0) {
+            JsonArray usernames = new JsonArray(names.length);
+            for (int i = 0; i < names.length; i++) {
+                JsonObject entry = new JsonObject();
+                if (names[i] != null) entry.addProperty("username", names[i]);
+                if (changedAt[i] != UNKNOWN_TIME) entry.addProperty("changed_at", formatTime(changedAt[i]));
+                if (availability[i] != AVAILABILITY_UNKNOWN) entry.addProperty("available", availability[i] == AVAILABILITY_AVAILABLE);
+                usernames.add(entry);
+            }
+            data.add("usernames", usernames);
+        }
+        return data;
+    }
+
+    /**
+     * The same profile with new availability flags; the history arrays are shared.
+     */
+    public PlayerProfile withAvailability(byte[] flags) {
+        return new PlayerProfile(hasUuid, uuidMost, uuidLeast, username, createdAt, views, names, changedAt, flags);
+    }
+
+    public static byte availabilityOf(boolean available) {
+        return available ? AVAILABILITY_AVAILABLE : AVAILABILITY_TAKEN;
+    }
+
+    /**
+     * Epoch millis for crafty's ISO-8601 timestamps (with or without offset, or a bare date), else {@link #UNKNOWN_TIME}.
+     */
+    public static long parseTime(String value) {
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T')).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_TIME;
+        }
+    }
+
+    public static String formatTime(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).toString();
+    }
+
+    private static UUID parseUuid(String value) {
+        String normalized = NameCache.normalizeUuid(value);
+        return normalized != null ? UUID.fromString(normalized) : null;
+    }
+
+    private static String string(JsonObject object, String field) {
+        return object.has(field) && !object.get(field).isJsonNull() ? object.get(field).getAsString() : null;
+    }
+
+    private static String intern(String value) {
+        return value != null ? value.intern() : null;
+    }
+}
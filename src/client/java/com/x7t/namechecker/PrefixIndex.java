@@ -0,0 +1,112 @@
+package com.x7t.namechecker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive prefix lookup for tab completion. Keys are lowercased once when a name is added, and a query
+ * only walks the sorted range of keys starting with the prefix, so it costs time in the number of matches.
+ * Online names rank first, then the most recently seen.
+ */
+public class PrefixIndex {
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+    private static final class Entry {
+        final String display;
+        volatile long seenAt;
+        volatile boolean online;
+
+        Entry(String display, long seenAt, boolean online) {
+            this.display = display;
+            this.seenAt = seenAt;
+            this.online = online;
+        }
+    }
+
+    private record Match(String display, boolean online, long seenAt) {}
+
+    private static final Comparator<Match> RANK = Comparator.comparing(Match::online).thenComparingLong(Match::seenAt);
+
+    /**
+     * Adds or updates {@code key}, suggested as {@code display}. A cache update never takes an online name offline.
+     */
+    public void put(String key, String display, long seenAt, boolean online) {
+        entries.compute(key.toLowerCase(Locale.ROOT), (k, existing) -> {
+            if (existing == null) {
+                return new Entry(display, seenAt, online);
+            }
+            if (!existing.display.equals(display)) {
+                return new Entry(display, Math.max(existing.seenAt, seenAt), online || existing.online);
+            }
+            existing.seenAt = Math.max(existing.seenAt, seenAt);
+            existing.online |= online;
+            return existing;
+        });
+    }
+
+    public void setOffline(String key, long seenAt) {
+        Entry entry = entries.get(key.toLowerCase(Locale.ROOT));
+        if (entry != null) {
+            entry.online = false;
+            entry.seenAt = Math.max(entry.seenAt, seenAt);
+        }
+    }
+
+    public void remove(String key) {
+        entries.remove(key.toLowerCase(Locale.ROOT));
+    }
+
+    public void removeOffline(String key) {
+        entries.computeIfPresent(key.toLowerCase(Locale.ROOT), (k, entry) -> entry.online ? entry : null);
+    }
+
+    public void removeOffline() {
+        entries.values().removeIf(entry -> !entry.online);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Up to {@code limit} names whose key starts with {@code lowerPrefix}, best ranked first.
+     */
+    public List<String> suggest(String lowerPrefix, int limit) {
+        NavigableMap<String, Entry> range = lowerPrefix.isEmpty() ? entries
+            : entries.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, false);
+        // Min-heap of the best matches so far; its head is the first to be displaced
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 64), RANK);
+        for (Entry entry : range.values()) {
+            boolean online = entry.online;
+            long seenAt = entry.seenAt;
+            if (best.size() < limit) {
+                best.add(new Match(entry.display, online, seenAt));
+            } else {
+                Match worst = best.peek();
+                if (online && !worst.online() || online == worst.online() && seenAt > worst.seenAt()) {
+                    best.poll();
+                    best.add(new Match(entry.display, online, seenAt));
+                }
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANK.reversed());
+        // Several keys can suggest the same name (Bedrock names with and without their prefix)
+        Set<String> names = new LinkedHashSet<>();
+        for (Match match : ranked) {
+            names.add(match.display());
+        }
+        return new ArrayList<>(names);
+    }
+}
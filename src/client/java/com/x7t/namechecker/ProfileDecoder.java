@@ -0,0 +1,142 @@
+package com.x7t.namechecker;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for API responses.
+ * Reads straight from the response stream into a {@link PlayerProfile}, keeping only the fields
+ * the mod displays and caches; everything else is skipped without building a tree.
+ */
+public class ProfileDecoder {
+
+    public static NameApi.ProfileResponse decodeProfile(InputStream in, int statusCode) throws IOException {
+        boolean success = false;
+        String message = null;
+        PlayerProfile profile = null;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "success" -> success = reader.nextBoolean();
+                    case "message" -> message = reader.nextString();
+                    case "data" -> profile = reader.peek() == JsonToken.BEGIN_OBJECT ? readData(reader) : skip(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new NameApi.ProfileResponse(success, message, profile, statusCode);
+    }
+
+    /**
+     * Only the {@code username} of an ashcon profile, or {@code null}.
+     */
+    public static String decodeUsername(InputStream in) throws IOException {
+        try (Reader streamReader = new InputStreamReader(in, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(streamReader)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("username") && reader.peek() == JsonToken.STRING) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+        }
+        return null;
+    }
+
+    private static PlayerProfile readData(JsonReader reader) throws IOException {
+        String uuid = null;
+        String username = null;
+        long createdAt = PlayerProfile.UNKNOWN_TIME;
+        long views = PlayerProfile.UNKNOWN_VIEWS;
+        List<String> names = new ArrayList<>();
+        List<Long> changedAt = new ArrayList<>();
+        List<Byte> availability = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "username" -> username = reader.nextString();
+                case "uuid" -> uuid = reader.nextString();
+                case "created_at" -> createdAt = PlayerProfile.parseTime(reader.nextString());
+                case "views_lifetime" -> views = reader.nextLong();
+                case "usernames" -> {
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        readUsernames(reader, names, changedAt, availability);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        int count = names.size();
+        long[] changed = new long[count];
+        byte[] flags = new byte[count];
+        for (int i = 0; i < count; i++) {
+            changed[i] = changedAt.get(i);
+            flags[i] = availability.get(i);
+        }
+        return PlayerProfile.of(uuid, username, createdAt, views, names.toArray(new String[0]), changed, flags);
+    }
+
+    private static void readUsernames(JsonReader reader, List<String> names, List<Long> changedAt,
+                                      List<Byte> availability) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String name = null;
+            long changed = PlayerProfile.UNKNOWN_TIME;
+            byte available = PlayerProfile.AVAILABILITY_UNKNOWN;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "username" -> name = reader.nextString();
+                    case "changed_at" -> changed = PlayerProfile.parseTime(reader.nextString());
+                    case "available" -> available = PlayerProfile.availabilityOf(reader.nextBoolean());
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            names.add(name);
+            changedAt.add(changed);
+            availability.add(available);
+        }
+        reader.endArray();
+    }
+
+    private static PlayerProfile skip(JsonReader reader) throws IOException {
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,207 @@
+package com.x7t.namechecker;
+
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rendered chat output of the profile card, one message per page. Profiles are immutable and every fetch or
+ * refresh stores a new instance, so entries are keyed by instance (weakly) and vanish with the version they show.
+ * Histories longer than {@link #PAGE_SIZE} are paginated; pages after the first are only built when their link is clicked.
+ */
+public class ProfileRenderCache {
+    public static final int PAGE_SIZE = 10;
+
+    // PlayerProfile has identity equality, so this is an identity map
+    private static final Map<PlayerProfile, Text[]> pages = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder builds = new LongAdder();
+
+    /**
+     * Page {@code page} (1-based, clamped) of the card for {@code profile}, built on first request.
+     */
+    public static Text render(PlayerProfile profile, int page) {
+        Text[] rendered = pages.computeIfAbsent(profile, p -> new Text[pageCount(p)]);
+        int index = Math.max(1, Math.min(page, rendered.length)) - 1;
+        Text text = rendered[index];
+        if (text != null) {
+            hits.increment();
+            return text;
+        }
+        builds.increment();
+        text = index == 0 ? buildCard(profile, rendered.length) : buildHistoryPage(profile, index + 1, rendered.length);
+        // Racing builders produce equal pages; whichever lands last is kept
+        rendered[index] = text;
+        return text;
+    }
+
+    public static int pageCount(PlayerProfile profile) {
+        // Without a UUID or name there is nothing for page links to look up
+        if (linkKey(profile) == null) {
+            return 1;
+        }
+        return Math.max(1, (profile.historySize() + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    public static int size() {
+        return pages.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getBuilds() {
+        return builds.sum();
+    }
+
+    public static void clear() {
+        pages.clear();
+    }
+
+    private static Text buildCard(PlayerProfile profile, int pageCount) {
+        Lines lines = new Lines();
+        lines.add(Text.literal(NameCheckCommand.SEPARATOR));
+        lines.add(Text.literal(NameCheckCommand.HEADER));
+        lines.add(Text.literal(""));
+
+        String username = profile.username();
+        if (username != null) {
+            lines.add(Text.literal("§7Current Name: §a" + username)
+                .setStyle(Style.EMPTY
+                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy name")))
+                    .withClickEvent(TextEventCompat.copyToClipboard(username))));
+        }
+
+        if (profile.hasUuid()) {
+            String uuid = profile.uuid();
+            lines.add(Text.literal("§7UUID: §e" + uuid)
+                .setStyle(Style.EMPTY
+                    .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to copy UUID")))
+                    .withClickEvent(TextEventCompat.copyToClipboard(uuid))));
+
+            if (username != null) {
+                String namemcUrl = "https://namemc.com/profile/" + username;
+                lines.add(Text.literal("§7Skin: §b[View on NameMC]")
+                    .setStyle(Style.EMPTY
+                        .withHoverEvent(TextEventCompat.showText(Text.literal("§7Click to open NameMC profile\n§8" + namemcUrl)))
+                        .withClickEvent(TextEventCompat.openUrl(namemcUrl))));
+            }
+        }
+
+        if (profile.historySize() > 0) {
+            lines.add(Text.literal(""));
+            lines.add(Text.literal("§7Name History §8(§f" + profile.historySize() + "§8):"));
+            addHistory(lines, profile, 1, pageCount);
+        } else {
+            lines.add(Text.literal(""));
+            lines.add(Text.literal("§7No name history available"));
+        }
+
+        if (profile.createdAt() != PlayerProfile.UNKNOWN_TIME) {
+            lines.add(Text.literal(""));
+            lines.add(Text.literal("§7First Seen: §e" + PlayerProfile.formatTime(profile.createdAt())));
+        }
+
+        if (profile.views() != PlayerProfile.UNKNOWN_VIEWS) {
+            lines.add(Text.literal("§7Profile Views: §e" + profile.views()));
+        }
+
+        lines.add(Text.literal(NameCheckCommand.SEPARATOR));
+        return lines.text;
+    }
+
+    private static Text buildHistoryPage(PlayerProfile profile, int page, int pageCount) {
+        Lines lines = new Lines();
+        lines.add(Text.literal(NameCheckCommand.SEPARATOR));
+        lines.add(Text.literal(NameCheckCommand.HEADER));
+        lines.add(Text.literal(""));
+        String owner = profile.username() != null ? profile.username() : linkKey(profile);
+        lines.add(Text.literal("§7Name History of §a" + owner + " §8(§f" + profile.historySize() + "§8):"));
+        addHistory(lines, profile, page, pageCount);
+        lines.add(Text.literal(NameCheckCommand.SEPARATOR));
+        return lines.text;
+    }
+
+    private static void addHistory(Lines lines, PlayerProfile profile, int page, int pageCount) {
+        int count = profile.historySize();
+        int from = pageCount > 1 ? (page - 1) * PAGE_SIZE : 0;
+        int to = pageCount > 1 ? Math.min(count, from + PAGE_SIZE) : count;
+        for (int i = from; i < to; i++) {
+            lines.add(historyLine(profile, i));
+        }
+        if (pageCount > 1) {
+            lines.add(navigation(linkKey(profile), page, pageCount));
+        }
+    }
+
+    private static Text historyLine(PlayerProfile profile, int i) {
+        int count = profile.historySize();
+        String name = profile.historyName(i) != null ? profile.historyName(i) : "Unknown";
+        String changedAt = "";
+        String hoverInfo = "§7Name: §f" + name;
+
+        if (profile.changedAt(i) != PlayerProfile.UNKNOWN_TIME) {
+            String time = PlayerProfile.formatTime(profile.changedAt(i));
+            changedAt = " §8(§7" + time + "§8)";
+            hoverInfo += "\n§7Changed: §e" + time;
+        } else if (i == count - 1) {
+            changedAt = " §8(§7Original§8)";
+            hoverInfo += "\n§7Original name";
+        }
+
+        if (profile.availability(i) != PlayerProfile.AVAILABILITY_UNKNOWN) {
+            boolean available = profile.availability(i) == PlayerProfile.AVAILABILITY_AVAILABLE;
+            hoverInfo += "\n§7Available: " + (available ? "§aYes" : "§cNo");
+        }
+
+        hoverInfo += "\n\n§8Click to copy";
+
+        return Text.literal("  §8» §f" + name + changedAt)
+            .setStyle(Style.EMPTY
+                .withHoverEvent(TextEventCompat.showText(Text.literal(hoverInfo)))
+                .withClickEvent(TextEventCompat.copyToClipboard(name)));
+    }
+
+    private static Text navigation(String key, int page, int pageCount) {
+        MutableText nav = Text.literal("  ");
+        if (page > 1) {
+            nav.append(pageLink("§8[§b« Previous§8]", key, page - 1)).append(" ");
+        }
+        nav.append(Text.literal("§7Page §f" + page + "§7/§f" + pageCount));
+        if (page < pageCount) {
+            nav.append(" ").append(pageLink("§8[§bNext »§8]", key, page + 1));
+        }
+        return nav;
+    }
+
+    private static Text pageLink(String label, String key, int page) {
+        return Text.literal(label)
+            .setStyle(Style.EMPTY
+                .withHoverEvent(TextEventCompat.showText(Text.literal("§7Show page " + page)))
+                .withClickEvent(TextEventCompat.runCommand("/namecheck history " + key + " " + page)));
+    }
+
+    private static String linkKey(PlayerProfile profile) {
+        return profile.hasUuid() ? profile.uuid() : profile.username();
+    }
+
+    // One chat message; lines are siblings so each keeps its own style
+    private static final class Lines {
+        final MutableText text = Text.empty();
+        boolean empty = true;
+
+        void add(Text line) {
+            if (!empty) {
+                text.append("\n");
+            }
+            text.append(line);
+            empty = false;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.x7t.namechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive token bucket for one upstream API.
+ * Callers get a future that completes once a token is available, so nothing sleeps on a pool thread.
+ * The refill rate follows AIMD: it grows slowly on success and halves on HTTP 429 or an exhausted
+ * rate-limit header, pausing until the server's {@code Retry-After} / reset time.
+ */
+public class RateLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
+    private static final long DEFAULT_BACKOFF_MS = 5000;
+    private static final long MAX_BACKOFF_MS = 120000;
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "x7t-rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final double burst;
+
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long pausedUntilNanos;
+    private boolean wakeupScheduled;
+    private long throttledCount;
+
+    /**
+     * @param initialRate  starting permits per second
+     * @param maxRate      ceiling the additive increase climbs back to
+     * @param burst        bucket size
+     */
+    public RateLimiter(String name, double initialRate, double maxRate, double burst) {
+        this.name = name;
+        this.rate = initialRate;
+        this.minRate = initialRate / 8;
+        this.maxRate = maxRate;
+        this.increaseStep = initialRate / 10;
+        this.burst = burst;
+        this.tokens = 1;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            if (waiters.isEmpty() && now >= pausedUntilNanos && tokens >= 1) {
+                tokens -= 1;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            scheduleWakeup(now);
+            return waiter;
+        }
+    }
+
+    public void onResponse(HttpResponse<?> response) {
+        HttpHeaders headers = response.headers();
+        int status = response.statusCode();
+        long now = System.nanoTime();
+
+        OptionalLong retryAfterMs = parseRetryAfter(headers);
+        OptionalLong remaining = firstLong(headers, "x-ratelimit-remaining", "ratelimit-remaining");
+
+        synchronized (this) {
+            if (status == 429 || (status == 503 && retryAfterMs.isPresent())) {
+                throttledCount++;
+                rate = Math.max(minRate, rate / 2);
+                tokens = 0;
+                long backoffMs = Math.min(MAX_BACKOFF_MS, retryAfterMs.orElse(DEFAULT_BACKOFF_MS));
+                pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                LOGGER.debug("{} API throttled (HTTP {}), backing off {} ms at {} req/s", name, status, backoffMs, String.format("%.2f", rate));
+            } else if (remaining.isPresent() && remaining.getAsLong() <= 0) {
+                rate = Math.max(minRate, rate / 2);
+                tokens = 0;
+                long resetMs = Math.min(MAX_BACKOFF_MS, parseReset(headers).orElse(DEFAULT_BACKOFF_MS));
+                pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(resetMs));
+            } else if (status < 500) {
+                rate = Math.min(maxRate, rate + increaseStep);
+            }
+            if (!waiters.isEmpty()) {
+                scheduleWakeup(now);
+            }
+        }
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        lastRefillNanos = now;
+        if (now >= pausedUntilNanos) {
+            tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        }
+    }
+
+    private void scheduleWakeup(long now) {
+        if (wakeupScheduled) {
+            return;
+        }
+        long delayNanos = Math.max(0, pausedUntilNanos - now);
+        if (tokens < 1) {
+            delayNanos = Math.max(delayNanos, (long) ((1 - tokens) / rate * 1_000_000_000L));
+        }
+        wakeupScheduled = true;
+        TIMER.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        ArrayDeque<CompletableFuture<Void>> ready = new ArrayDeque<>();
+        synchronized (this) {
+            wakeupScheduled = false;
+            long now = System.nanoTime();
+            refill(now);
+            while (!waiters.isEmpty() && now >= pausedUntilNanos && tokens >= 1) {
+                tokens -= 1;
+                ready.add(waiters.poll());
+            }
+            if (!waiters.isEmpty()) {
+                scheduleWakeup(now);
+            }
+        }
+        ready.forEach(w -> w.complete(null));
+    }
+
+    private static OptionalLong parseRetryAfter(HttpHeaders headers) {
+        String value = headers.firstValue("retry-after").orElse(null);
+        if (value == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return OptionalLong.of(Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis()));
+            } catch (Exception ignored) {
+                return OptionalLong.empty();
+            }
+        }
+    }
+
+    // Reset headers are either seconds-until-reset or an epoch timestamp in seconds
+    private static OptionalLong parseReset(HttpHeaders headers) {
+        OptionalLong reset = firstLong(headers, "x-ratelimit-reset", "ratelimit-reset");
+        if (reset.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        long value = reset.getAsLong();
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        return OptionalLong.of(value > nowSeconds ? (value - nowSeconds) * 1000 : value * 1000);
+    }
+
+    private static OptionalLong firstLong(HttpHeaders headers, String... names) {
+        for (String header : names) {
+            List<String> values = headers.allValues(header);
+            if (!values.isEmpty()) {
+                try {
+                    return OptionalLong.of(Long.parseLong(values.get(0).trim()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+}
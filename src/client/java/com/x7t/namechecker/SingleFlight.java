@@ -0,0 +1,87 @@
+package com.x7t.namechecker;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-flight request registry keyed by normalized name.
+ * Concurrent callers for the same key share one future and one network round trip.
+ * A completed result stays joinable for a short grace period so back-to-back callers reuse it.
+ */
+public class SingleFlight<T> {
+    private static final long RESULT_GRACE_MS = 2000;
+
+    private final String endpoint;
+    private final Map<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SingleFlight(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public CompletableFuture<T> execute(String name, Supplier<CompletableFuture<T>> loader) {
+        String key = name.toLowerCase(Locale.ROOT);
+        CompletableFuture<T> existing = inFlight.get(key);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        CompletableFuture<T> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return join(existing);
+        }
+        misses.increment();
+
+        try {
+            loader.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    inFlight.remove(key, created);
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(result);
+                    LookupExecutor.delayed(RESULT_GRACE_MS).execute(() -> inFlight.remove(key, created));
+                }
+            });
+        } catch (Throwable t) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(t);
+        }
+        return created;
+    }
+
+    private CompletableFuture<T> join(CompletableFuture<T> existing) {
+        if (existing.isDone()) {
+            hits.increment();
+        } else {
+            joins.increment();
+        }
+        return existing;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getJoins() {
+        return joins.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
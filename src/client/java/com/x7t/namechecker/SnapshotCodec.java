@@ -0,0 +1,289 @@
+package com.x7t.namechecker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary snapshot format for {@link NameCache}.
+ * Layout: magic {@code X7TC}, format version, the compaction generation, then a deflate stream holding the entry
+ * count and each entry with its {@link PlayerProfile} fields written directly (no field-name reflection on load).
+ * Version 1 snapshots stored the profile as tagged JSON values, version 2 had no separate refresh time for
+ * views and availability, version 3 had no generation; all are still read for migration.
+ */
+public class SnapshotCodec {
+    private static final int MAGIC = 0x58375443; // "X7TC"
+    public static final int VERSION = 4;
+    private static final int VERSION_JSON_TREE = 1;
+    private static final int VERSION_SINGLE_TIMESTAMP = 2;
+    private static final int VERSION_NO_GENERATION = 3;
+
+    // Per-profile presence bits
+    private static final int HAS_UUID = 1;
+    private static final int HAS_CREATED = 2;
+    private static final int HAS_VIEWS = 4;
+    // Per-history-entry bits; the availability byte sits in bits 2-3
+    private static final int HAS_NAME = 1;
+    private static final int HAS_CHANGED = 2;
+
+    // Version 1 value tags
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_ARRAY = 6;
+    private static final byte TAG_OBJECT = 7;
+
+    public static void write(OutputStream target, Map<String, NameCache.CachedPlayer> entries, long generation) throws IOException {
+        DataOutputStream header = new DataOutputStream(target);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeLong(generation);
+        header.flush();
+
+        Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(target, compressor, 64 * 1024);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater, 64 * 1024));
+        writeVarInt(out, entries.size());
+        for (Map.Entry<String, NameCache.CachedPlayer> entry : entries.entrySet()) {
+            NameCache.CachedPlayer player = entry.getValue();
+            writeString(out, entry.getKey());
+            writeString(out, player.name);
+            out.writeLong(player.timestamp);
+            out.writeLong(player.volatileTimestamp);
+            out.writeBoolean(player.available);
+            writeProfile(out, player.profile);
+        }
+        out.flush();
+        deflater.finish();
+        compressor.end();
+    }
+
+    /**
+     * Whether {@code file} is a snapshot in the current format; older versions are rewritten on the next compaction.
+     */
+    public static boolean isCurrentVersion(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC && in.readUnsignedShort() == VERSION;
+        }
+    }
+
+    /**
+     * The compaction generation {@code file} was written in; 0 for snapshots from before generations were stored.
+     */
+    public static long readGeneration(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a cache snapshot");
+            }
+            return in.readUnsignedShort() >= VERSION ? in.readLong() : 0;
+        }
+    }
+
+    public static Map<String, NameCache.CachedPlayer> read(InputStream source) throws IOException {
+        DataInputStream header = new DataInputStream(source);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a cache snapshot");
+        }
+        int version = header.readUnsignedShort();
+        if (version != VERSION && version != VERSION_NO_GENERATION && version != VERSION_SINGLE_TIMESTAMP
+                && version != VERSION_JSON_TREE) {
+            throw new IOException("Unsupported cache snapshot version " + version);
+        }
+        if (version >= VERSION) {
+            header.readLong(); // generation, see readGeneration
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(source), 64 * 1024));
+        int count = readVarInt(in);
+        Map<String, NameCache.CachedPlayer> entries = new HashMap<>(Math.max(16, count * 4 / 3));
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            String name = readString(in);
+            NameCache.CachedPlayer player;
+            if (version == VERSION_JSON_TREE) {
+                String uuid = readString(in);
+                long timestamp = in.readLong();
+                boolean available = in.readBoolean();
+                JsonElement data = readElement(in);
+                player = new NameCache.CachedPlayer(name, PlayerProfile.fromJson(
+                    data != null && data.isJsonObject() ? data.getAsJsonObject() : new JsonObject(), uuid), available);
+                player.timestamp = timestamp;
+                player.volatileTimestamp = timestamp;
+            } else {
+                long timestamp = in.readLong();
+                long volatileTimestamp = version == VERSION_SINGLE_TIMESTAMP ? timestamp : in.readLong();
+                boolean available = in.readBoolean();
+                player = new NameCache.CachedPlayer(name, readProfile(in), available);
+                player.timestamp = timestamp;
+                player.volatileTimestamp = volatileTimestamp;
+            }
+            entries.put(key, player);
+        }
+        return entries;
+    }
+
+    static void writeProfile(DataOutputStream out, PlayerProfile profile) throws IOException {
+        int flags = (profile.hasUuid() ? HAS_UUID : 0)
+            | (profile.createdAt() != PlayerProfile.UNKNOWN_TIME ? HAS_CREATED : 0)
+            | (profile.views() != PlayerProfile.UNKNOWN_VIEWS ? HAS_VIEWS : 0);
+        out.writeByte(flags);
+        if (profile.hasUuid()) {
+            out.writeLong(profile.uuidMost());
+            out.writeLong(profile.uuidLeast());
+        }
+        writeString(out, profile.username());
+        if (profile.createdAt() != PlayerProfile.UNKNOWN_TIME) writeVarLong(out, profile.createdAt());
+        if (profile.views() != PlayerProfile.UNKNOWN_VIEWS) writeVarLong(out, profile.views());
+        writeVarInt(out, profile.historySize());
+        for (int i = 0; i < profile.historySize(); i++) {
+            String name = profile.historyName(i);
+            long changedAt = profile.changedAt(i);
+            out.writeByte((name != null ? HAS_NAME : 0) | (changedAt != PlayerProfile.UNKNOWN_TIME ? HAS_CHANGED : 0)
+                | profile.availability(i) << 2);
+            if (name != null) writeString(out, name);
+            if (changedAt != PlayerProfile.UNKNOWN_TIME) writeVarLong(out, changedAt);
+        }
+    }
+
+    static PlayerProfile readProfile(DataInputStream in) throws IOException {
+        int flags = in.readUnsignedByte();
+        boolean hasUuid = (flags & HAS_UUID) != 0;
+        long most = hasUuid ? in.readLong() : 0;
+        long least = hasUuid ? in.readLong() : 0;
+        String username = readString(in);
+        long createdAt = (flags & HAS_CREATED) != 0 ? readVarLong(in) : PlayerProfile.UNKNOWN_TIME;
+        long views = (flags & HAS_VIEWS) != 0 ? readVarLong(in) : PlayerProfile.UNKNOWN_VIEWS;
+        int count = readVarInt(in);
+        String[] names = new String[count];
+        long[] changedAt = new long[count];
+        byte[] availability = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int entryFlags = in.readUnsignedByte();
+            names[i] = (entryFlags & HAS_NAME) != 0 ? readString(in) : null;
+            changedAt[i] = (entryFlags & HAS_CHANGED) != 0 ? readVarLong(in) : PlayerProfile.UNKNOWN_TIME;
+            availability[i] = (byte) ((entryFlags >> 2) & 0x3);
+        }
+        return new PlayerProfile(hasUuid, most, least, username, createdAt, views, names, changedAt, availability);
+    }
+
+    // Version 1 profile data as a tagged JSON tree
+    private static JsonElement readElement(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_TRUE:
+                return new JsonPrimitive(true);
+            case TAG_FALSE:
+                return new JsonPrimitive(false);
+            case TAG_LONG:
+                return new JsonPrimitive(readVarLong(in));
+            case TAG_DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case TAG_STRING:
+                return new JsonPrimitive(readString(in));
+            case TAG_ARRAY: {
+                int size = readVarInt(in);
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readElement(in));
+                }
+                return array;
+            }
+            case TAG_OBJECT: {
+                int size = readVarInt(in);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    object.add(key, readElement(in));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Corrupt cache snapshot (tag " + tag + ")");
+        }
+    }
+
+    // Length-prefixed UTF-8; length 0 means null, otherwise byte length + 1
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt cache snapshot (varint)");
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Corrupt cache snapshot (varlong)");
+    }
+}
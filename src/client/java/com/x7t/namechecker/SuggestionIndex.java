@@ -0,0 +1,165 @@
+package com.x7t.namechecker;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.PlayerListEntry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The prefix indexes behind tab completion. The tab list is diffed at the end of client ticks, right away when
+ * its size changes and otherwise once a second; cached players and watchlist names are added as they are stored,
+ * and offline players are dropped again when their profile leaves the heap cache.
+ */
+public class SuggestionIndex {
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final int FULL_DIFF_TICKS = 20;
+
+    private static final PrefixIndex players = new PrefixIndex();
+    private static final PrefixIndex bedrockPlayers = new PrefixIndex();
+    private static final PrefixIndex watchlist = new PrefixIndex();
+
+    // Tab list as of the last diff; client thread only
+    private static final Map<UUID, String> online = new HashMap<>();
+    private static int ticks;
+    // Bedrock players that joined since the last Bedrock suggestion request, resolved in the background once asked for
+    private static final Set<String> unresolvedBedrock = ConcurrentHashMap.newKeySet();
+
+    public static void init() {
+        ClientTickEvents.END_CLIENT_TICK.register(SuggestionIndex::onTick);
+    }
+
+    private static void onTick(MinecraftClient client) {
+        ClientPlayNetworkHandler handler = client.getNetworkHandler();
+        if (handler == null) {
+            if (!online.isEmpty()) {
+                long now = System.currentTimeMillis();
+                online.values().forEach(name -> markOffline(name, now));
+                online.clear();
+            }
+            return;
+        }
+        Collection<PlayerListEntry> list = handler.getPlayerList();
+        if (list.size() == online.size() && ++ticks % FULL_DIFF_TICKS != 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<UUID> present = new HashSet<>(list.size() * 4 / 3 + 1);
+        for (PlayerListEntry entry : list) {
+            UUID id = entry.getProfile().getId();
+            String name = entry.getProfile().getName();
+            present.add(id);
+            String previous = online.put(id, name);
+            if (!name.equals(previous)) {
+                if (previous != null) {
+                    markOffline(previous, now);
+                }
+                markOnline(name, now);
+            }
+        }
+        for (Iterator<Map.Entry<UUID, String>> it = online.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, String> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                markOffline(entry.getValue(), now);
+                it.remove();
+            }
+        }
+    }
+
+    private static void markOnline(String name, long now) {
+        players.put(name, name, now, true);
+        if (isBedrockName(name)) {
+            String gamertag = name.substring(1);
+            bedrockPlayers.put(gamertag, gamertag, now, true);
+            bedrockPlayers.put(name, gamertag, now, true);
+            unresolvedBedrock.add(gamertag);
+        } else {
+            bedrockPlayers.put(name, name, now, true);
+        }
+    }
+
+    private static void markOffline(String name, long now) {
+        // Players who left stay suggestible only while their profile is cached on the heap
+        if (NameCache.isOnHeap(name)) {
+            players.setOffline(name, now);
+        } else {
+            players.remove(name);
+        }
+        // Only online players are suggested for Bedrock lookups
+        bedrockPlayers.remove(name);
+        if (isBedrockName(name)) {
+            bedrockPlayers.remove(name.substring(1));
+            unresolvedBedrock.remove(name.substring(1));
+        }
+    }
+
+    // Floodgate's default username prefixes
+    private static boolean isBedrockName(String name) {
+        return name.length() > 1 && (name.startsWith(".") || name.startsWith("*"));
+    }
+
+    public static void onCached(String name, long timestamp) {
+        if (name != null) {
+            players.put(name, name, timestamp, false);
+        }
+    }
+
+    // Moved off-heap or expired; names still online or held by another cached entry stay
+    public static void onEvicted(String name) {
+        if (name != null && !NameCache.isOnHeap(name)) {
+            players.removeOffline(name);
+        }
+    }
+
+    public static void onCacheCleared() {
+        players.removeOffline();
+    }
+
+    public static void onWatched(String name) {
+        watchlist.put(name, name, System.currentTimeMillis(), false);
+    }
+
+    public static void onUnwatched(String name) {
+        watchlist.remove(name);
+    }
+
+    public static void onWatchlistCleared() {
+        watchlist.clear();
+    }
+
+    public static CompletableFuture<Suggestions> suggestPlayers(SuggestionsBuilder builder) {
+        return suggest(players, builder);
+    }
+
+    public static CompletableFuture<Suggestions> suggestBedrockPlayers(SuggestionsBuilder builder) {
+        if (!unresolvedBedrock.isEmpty()) {
+            for (Iterator<String> it = unresolvedBedrock.iterator(); it.hasNext(); ) {
+                BedrockCache.enqueue(it.next());
+                it.remove();
+            }
+        }
+        return suggest(bedrockPlayers, builder);
+    }
+
+    public static CompletableFuture<Suggestions> suggestWatchlist(SuggestionsBuilder builder) {
+        return suggest(watchlist, builder);
+    }
+
+    private static CompletableFuture<Suggestions> suggest(PrefixIndex index, SuggestionsBuilder builder) {
+        for (String name : index.suggest(builder.getRemainingLowerCase(), MAX_SUGGESTIONS)) {
+            builder.suggest(name);
+        }
+        return builder.buildFuture();
+    }
+}
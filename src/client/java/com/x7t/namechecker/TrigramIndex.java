@@ -0,0 +1,319 @@
+package com.x7t.namechecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Substring and fuzzy search over every name in cached profiles, current names and {@code usernames[]} history alike.
+ * Each distinct name (case-insensitive) gets an int id; each lowercase trigram maps to a sorted array of the ids
+ * containing it. Names are held as the interned strings the profiles already share and are reference-counted,
+ * so a name stays searchable while any cached profile still mentions it.
+ * Only profiles in the heap cache are indexed: entries moved off-heap and imported datasets are not searched,
+ * so coverage is bounded by the cache's {@code maxEntries} (5000 by default).
+ */
+public class TrigramIndex {
+    private static final int FREE = -1;
+    private static final int DELETED = -2;
+
+    // Dense by id; a null name marks a free id
+    private String[] names = new String[1024];
+    private int[] refs = new int[1024];
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    private int nextId;
+    private int count;
+
+    // Open-addressing table of ids, hashed by lowercase name
+    private int[] table = newTable(2048);
+    private int tableUsed;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int at = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0 && at < size) {
+                return;
+            }
+            at = at < 0 ? -at - 1 : at;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * A search hit. {@code substring} hits contain the fragment; the rest share at least half its trigrams,
+     * with {@code similarity} the trigram overlap (Jaccard) between fragment and name.
+     */
+    public record Match(String name, boolean substring, boolean prefix, double similarity) {}
+
+    private static final Comparator<Match> RANK = Comparator.comparing(Match::substring)
+        .thenComparing(Match::prefix)
+        .thenComparingDouble(Match::similarity)
+        .reversed()
+        .thenComparingInt(match -> match.name().length())
+        .thenComparing(Match::name, String.CASE_INSENSITIVE_ORDER);
+
+    public synchronized void add(PlayerProfile profile) {
+        if (profile.username() != null) {
+            addName(profile.username());
+        }
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (profile.historyName(i) != null) {
+                addName(profile.historyName(i));
+            }
+        }
+    }
+
+    public synchronized void remove(PlayerProfile profile) {
+        if (profile.username() != null) {
+            removeName(profile.username());
+        }
+        for (int i = 0; i < profile.historySize(); i++) {
+            if (profile.historyName(i) != null) {
+                removeName(profile.historyName(i));
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        names = new String[1024];
+        refs = new int[1024];
+        freeCount = 0;
+        nextId = 0;
+        count = 0;
+        table = newTable(2048);
+        tableUsed = 0;
+        postings.clear();
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized int trigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Up to {@code limit} names matching {@code fragment}: names containing it first (prefix matches before the rest,
+     * then shorter names), then similar names by trigram overlap. Fragments under three characters only match
+     * as substrings, by scanning the name table.
+     */
+    public synchronized List<Match> search(String fragment, int limit) {
+        String query = fragment.toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Heap of the best matches so far, worst at the head
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 64), RANK.reversed());
+        long[] grams = trigrams(query);
+        if (grams.length == 0) {
+            for (int id = 0; id < nextId; id++) {
+                String name = names[id];
+                if (name != null && containsIgnoreCase(name, query)) {
+                    offer(best, new Match(name, true, name.regionMatches(true, 0, query, 0, query.length()), 1.0), limit);
+                }
+            }
+        } else {
+            int total = 0;
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                total += lists[i] != null ? lists[i].size : 0;
+            }
+            // Concatenate the posting lists and count runs: a name's run length is how many query trigrams it shares
+            int[] all = new int[total];
+            int n = 0;
+            for (Postings list : lists) {
+                if (list != null) {
+                    System.arraycopy(list.ids, 0, all, n, list.size);
+                    n += list.size;
+                }
+            }
+            Arrays.sort(all);
+            int minShared = (grams.length + 1) / 2;
+            for (int i = 0; i < n; ) {
+                int id = all[i];
+                int shared = 0;
+                while (i < n && all[i] == id) {
+                    shared++;
+                    i++;
+                }
+                if (shared < minShared) {
+                    continue;
+                }
+                String name = names[id];
+                boolean substring = shared == grams.length && containsIgnoreCase(name, query);
+                boolean prefix = substring && name.regionMatches(true, 0, query, 0, query.length());
+                int nameGrams = Math.max(1, name.length() - 2);
+                double similarity = (double) shared / (grams.length + nameGrams - shared);
+                offer(best, new Match(name, substring, prefix, similarity), limit);
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        return ranked;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (RANK.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private void addName(String name) {
+        int slot = find(name);
+        if (slot >= 0) {
+            refs[table[slot]]++;
+            return;
+        }
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            refs = Arrays.copyOf(refs, id * 2);
+        }
+        names[id] = name;
+        refs[id] = 1;
+        count++;
+        insert(id);
+        for (long gram : trigrams(name.toLowerCase(Locale.ROOT))) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+    }
+
+    private void removeName(String name) {
+        int slot = find(name);
+        if (slot < 0) {
+            return;
+        }
+        int id = table[slot];
+        if (--refs[id] > 0) {
+            return;
+        }
+        for (long gram : trigrams(name.toLowerCase(Locale.ROOT))) {
+            Postings list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        table[slot] = DELETED;
+        names[id] = null;
+        count--;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    // Slot holding the id of name, or -1
+    private int find(String name) {
+        int mask = table.length - 1;
+        for (int slot = hash(name) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == FREE) {
+                return -1;
+            }
+            if (id != DELETED && names[id].equalsIgnoreCase(name)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int id) {
+        // Tombstones count as used, so a rehash also clears them
+        if ((tableUsed + 1) * 2 > table.length) {
+            int[] old = table;
+            table = newTable(count * 2 > old.length / 2 ? old.length * 2 : old.length);
+            tableUsed = 0;
+            for (int existing : old) {
+                if (existing >= 0 && existing != id) {
+                    place(existing);
+                }
+            }
+        }
+        place(id);
+    }
+
+    private void place(int id) {
+        int mask = table.length - 1;
+        int slot = hash(names[id]) & mask;
+        while (table[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == FREE) {
+            tableUsed++;
+        }
+        table[slot] = id;
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, FREE);
+        return table;
+    }
+
+    // Case-insensitive, without allocating a lowercase copy
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + Character.toLowerCase(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Distinct trigrams of an already lowercased string, three chars packed into a long
+    private static long[] trigrams(String lower) {
+        if (lower.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[lower.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) lower.charAt(i) << 32 | (long) lower.charAt(i + 1) << 16 | lower.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static boolean containsIgnoreCase(String name, String lower) {
+        for (int i = 0; i + lower.length() <= name.length(); i++) {
+            if (name.regionMatches(true, i, lower, 0, lower.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
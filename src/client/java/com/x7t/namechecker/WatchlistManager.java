@@ -17,8 +17,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -33,37 +31,55 @@ public class WatchlistManager {
     
     private static final Set<String> watchlist = ConcurrentHashMap.newKeySet();
     private static final Map<String, Boolean> lastStatus = new ConcurrentHashMap<>();
-    private static ScheduledExecutorService scheduler;
+    // Saves wait for this so names watched during startup do not overwrite the file before it was read
+    private static final CompletableFuture<Void> watchlistLoaded = new CompletableFuture<>();
+    private static volatile ScheduledExecutorService scheduler;
+    private static volatile boolean shuttingDown = false;
     private static final long CHECK_INTERVAL_MS = 60000;
     
     private static String notificationSoundId = "entity.player.levelup";
     private static float notificationVolume = 1.0f;
     
+    /**
+     * Loads config and watchlist in the background; the checker thread only starts once a name is watched.
+     */
     public static void init() {
-        try {
-            if (!Files.exists(CONFIG_DIR)) {
-                Files.createDirectories(CONFIG_DIR);
+        LookupExecutor.executor().execute(() -> {
+            try {
+                if (!Files.exists(CONFIG_DIR)) {
+                    Files.createDirectories(CONFIG_DIR);
+                }
+                loadConfig();
+                loadWatchlist();
+                watchlist.forEach(SuggestionIndex::onWatched);
+                if (!watchlist.isEmpty()) {
+                    startWatcher();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to initialize watchlist: {}", e.getMessage());
+            } finally {
+                watchlistLoaded.complete(null);
             }
-            loadConfig();
-            loadWatchlist();
-            startWatcher();
-        } catch (IOException e) {
-            LOGGER.error("Failed to initialize watchlist: {}", e.getMessage());
-        }
+        });
     }
     
     public static void shutdown() {
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
+        ScheduledExecutorService current;
+        synchronized (WatchlistManager.class) {
+            shuttingDown = true;
+            current = scheduler;
+        }
+        if (current != null && !current.isShutdown()) {
+            current.shutdown();
             try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                    if (!scheduler.awaitTermination(2, TimeUnit.SECONDS)) {
+                if (!current.awaitTermination(5, TimeUnit.SECONDS)) {
+                    current.shutdownNow();
+                    if (!current.awaitTermination(2, TimeUnit.SECONDS)) {
                         LOGGER.warn("Watchlist scheduler did not terminate");
                     }
                 }
             } catch (InterruptedException e) {
-                scheduler.shutdownNow();
+                current.shutdownNow();
                 Thread.currentThread().interrupt();
             }
         }
@@ -97,7 +113,10 @@ public class WatchlistManager {
             return false;
         }
         watchlist.add(name.toLowerCase());
+        SuggestionIndex.onWatched(name.toLowerCase());
+        NameCache.pin(name);
         saveWatchlist();
+        startWatcher();
         return true;
     }
 
@@ -113,6 +132,8 @@ public class WatchlistManager {
         boolean removed = watchlist.remove(name.toLowerCase());
         if (removed) {
             lastStatus.remove(name.toLowerCase());
+            SuggestionIndex.onUnwatched(name);
+            NameCache.unpin(name);
             saveWatchlist();
         }
         return removed;
@@ -127,7 +148,9 @@ public class WatchlistManager {
     }
     
     public static void clearWatchlist() {
+        watchlist.forEach(NameCache::unpin);
         watchlist.clear();
+        SuggestionIndex.onWatchlistCleared();
         lastStatus.clear();
         saveWatchlist();
     }
@@ -136,9 +159,9 @@ public class WatchlistManager {
         return watchlist.contains(name.toLowerCase());
     }
     
-    private static void startWatcher() {
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
+    private static synchronized void startWatcher() {
+        if (scheduler != null || shuttingDown) {
+            return;
         }
         
         scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -150,14 +173,13 @@ public class WatchlistManager {
         scheduler.scheduleAtFixedRate(() -> {
             if (watchlist.isEmpty()) return;
             
+            // Checks run on the lookup executor; pacing is left to the ashcon rate limiter
             for (String name : watchlist) {
                 try {
-                    checkName(name);
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    LookupExecutor.submit(() -> checkName(name));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.debug("Lookup queue full, deferring watchlist check for {}", name);
                     break;
-                } catch (Exception e) {
                 }
             }
         }, 10, CHECK_INTERVAL_MS / 1000, TimeUnit.SECONDS);
@@ -165,15 +187,9 @@ public class WatchlistManager {
     
     private static void checkName(String name) {
         try {
-            URI uri = new URI("https://api.ashcon.app/mojang/v2/user/" + name);
-            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "x7t-name-checker/1.0");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            boolean available = (responseCode == 404 || responseCode == 204);
+            AvailabilityCache.Entry cached = AvailabilityCache.getChecked(name, CacheStats.Source.WATCHLIST);
+            NameApi.Availability result = cached != null ? cached.availability : NameApi.fetchAvailability(name).join();
+            boolean available = result.isAvailable();
             
             Boolean previousStatus = lastStatus.get(name.toLowerCase());
             
@@ -271,8 +287,12 @@ public class WatchlistManager {
             Type type = new TypeToken<Set<String>>(){}.getType();
             Set<String> loaded = GSON.fromJson(reader, type);
             if (loaded != null) {
-                watchlist.clear();
-                watchlist.addAll(loaded);
+                // Merged: names watched while this was loading stay watched
+                for (String name : loaded) {
+                    if (watchlist.add(name)) {
+                        NameCache.pin(name);
+                    }
+                }
             }
         } catch (Exception e) {
             LOGGER.error("Failed to load watchlist: {}", e.getMessage());
@@ -280,6 +300,10 @@ public class WatchlistManager {
     }
     
     private static void saveWatchlist() {
+        watchlistLoaded.thenRun(WatchlistManager::writeWatchlist);
+    }
+    
+    private static synchronized void writeWatchlist() {
         try {
             if (!Files.exists(CONFIG_DIR)) {
                 Files.createDirectories(CONFIG_DIR);
@@ -4,68 +4,45 @@ import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.network.PlayerListEntry;
 import net.minecraft.text.ClickEvent;
 import net.minecraft.text.HoverEvent;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 public class X7tNameCheckerClient implements ClientModInitializer {
+    private static final Logger LOGGER = LoggerFactory.getLogger("x7t-namechecker");
 
-    private static final SuggestionProvider<FabricClientCommandSource> PLAYER_SUGGESTIONS = (context, builder) -> {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client.getNetworkHandler() != null) {
-            Collection<PlayerListEntry> players = client.getNetworkHandler().getPlayerList();
-            for (PlayerListEntry entry : players) {
-                String name = entry.getProfile().getName();
-                if (name.toLowerCase().startsWith(builder.getRemainingLowerCase())) {
-                    builder.suggest(name);
-                }
-            }
-        }
-        return builder.buildFuture();
-    };
+    private static final SuggestionProvider<FabricClientCommandSource> PLAYER_SUGGESTIONS =
+        (context, builder) -> SuggestionIndex.suggestPlayers(builder);
 
-    private static final SuggestionProvider<FabricClientCommandSource> BEDROCK_PLAYER_SUGGESTIONS = (context, builder) -> {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client.getNetworkHandler() != null) {
-            Collection<PlayerListEntry> players = client.getNetworkHandler().getPlayerList();
-            for (PlayerListEntry entry : players) {
-                String name = entry.getProfile().getName();
-                if (name.startsWith(".") || name.startsWith("*")) {
-                    String cleanName = name.substring(1);
-                    if (cleanName.toLowerCase().startsWith(builder.getRemainingLowerCase()) ||
-                        name.toLowerCase().startsWith(builder.getRemainingLowerCase())) {
-                        builder.suggest(cleanName);
-                    }
-                } else if (name.toLowerCase().startsWith(builder.getRemainingLowerCase())) {
-                    builder.suggest(name);
-                }
-            }
-        }
-        return builder.buildFuture();
-    };
+    private static final SuggestionProvider<FabricClientCommandSource> BEDROCK_PLAYER_SUGGESTIONS =
+        (context, builder) -> SuggestionIndex.suggestBedrockPlayers(builder);
 
-    private static final SuggestionProvider<FabricClientCommandSource> WATCHLIST_SUGGESTIONS = (context, builder) -> {
-        Set<String> watchlist = WatchlistManager.getWatchlist();
-        for (String name : watchlist) {
-            if (name.toLowerCase().startsWith(builder.getRemainingLowerCase())) {
-                builder.suggest(name);
-            }
-        }
-        return builder.buildFuture();
-    };
+    private static final SuggestionProvider<FabricClientCommandSource> WATCHLIST_SUGGESTIONS =
+        (context, builder) -> SuggestionIndex.suggestWatchlist(builder);
 
     @Override
     public void onInitializeClient() {
+        long start = System.nanoTime();
+        HttpTransport.init();
+        // Disk loads and reflection run on the lookup executor; nothing here blocks the client thread
         NameCache.init();
+        NameCache.setRefresher(NameCheckCommand::fetchAndCache);
+        NameCache.setAvailabilityChecker(NameCheckCommand::checkAvailable);
         WatchlistManager.init();
+        BedrockCache.init();
+        SuggestionIndex.init();
+        LookupExecutor.executor().execute(TextEventCompat::warmUp);
         
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
             dispatcher.register(ClientCommandManager.literal("namecheck")
@@ -82,6 +59,40 @@ public class X7tNameCheckerClient implements ClientModInitializer {
                         })
                     )
                 )
+                .then(ClientCommandManager.literal("owners")
+                    .then(ClientCommandManager.argument("name", StringArgumentType.word())
+                        .executes(context -> {
+                            NameCheckCommand.showOwners(context.getSource(), StringArgumentType.getString(context, "name"), null);
+                            return 1;
+                        })
+                        .then(ClientCommandManager.argument("date", StringArgumentType.word())
+                            .executes(context -> {
+                                NameCheckCommand.showOwners(context.getSource(), StringArgumentType.getString(context, "name"),
+                                    StringArgumentType.getString(context, "date"));
+                                return 1;
+                            })
+                        )
+                    )
+                )
+                .then(ClientCommandManager.literal("history")
+                    .then(ClientCommandManager.argument("player", StringArgumentType.word())
+                        .then(ClientCommandManager.argument("page", IntegerArgumentType.integer(1))
+                            .executes(context -> {
+                                NameCheckCommand.showHistoryPage(context.getSource(), StringArgumentType.getString(context, "player"),
+                                    IntegerArgumentType.getInteger(context, "page"));
+                                return 1;
+                            })
+                        )
+                    )
+                )
+                .then(ClientCommandManager.literal("search")
+                    .then(ClientCommandManager.argument("fragment", StringArgumentType.word())
+                        .executes(context -> {
+                            NameCheckCommand.search(context.getSource(), StringArgumentType.getString(context, "fragment"));
+                            return 1;
+                        })
+                    )
+                )
                 .then(ClientCommandManager.literal("bedrock")
                     .then(ClientCommandManager.argument("gamertag", StringArgumentType.greedyString())
                         .suggests(BEDROCK_PLAYER_SUGGESTIONS)
@@ -96,7 +107,9 @@ public class X7tNameCheckerClient implements ClientModInitializer {
                     .then(ClientCommandManager.argument("name", StringArgumentType.string())
                         .executes(context -> {
                             String name = StringArgumentType.getString(context, "name");
-                            if (WatchlistManager.isWatching(name)) {
+                            if (!NameCheckCommand.isValidJavaName(name)) {
+                                context.getSource().sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§e" + name + " §cis not a valid Minecraft username §7(3-16 letters, digits or _)"));
+                            } else if (WatchlistManager.isWatching(name)) {
                                 context.getSource().sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cThis name is already on your watchlist!"));
                             } else if (WatchlistManager.isWatchlistFull()) {
                                 context.getSource().sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cWatchlist is full! §7(Max " + WatchlistManager.getMaxWatchlistSize() + " names)"));
@@ -143,22 +156,62 @@ public class X7tNameCheckerClient implements ClientModInitializer {
                         context.getSource().sendFeedback(Text.literal(NameCheckCommand.SEPARATOR));
                         context.getSource().sendFeedback(Text.literal("§8[§bx7t Cache§8]"));
                         context.getSource().sendFeedback(Text.literal(""));
-                        context.getSource().sendFeedback(Text.literal("§7Cached Players: §e" + NameCache.getCacheSize()));
+                        context.getSource().sendFeedback(Text.literal("§7Cached Players: §e" + NameCache.getCacheSize() + "§7/§e" + NameCache.getMaxEntries()
+                            + " §8(§7~" + (NameCache.getEstimatedBytes() / 1024) + " KB§8)"));
+                        context.getSource().sendFeedback(Text.literal("§7Off-heap: §e" + NameCache.getOffHeapSize() + " §7entries §8(§7" + (NameCache.getOffHeapBytes() / 1024)
+                            + " KB§8) §8| §7Promoted: §e" + NameCache.getPromotions()));
+                        context.getSource().sendFeedback(Text.literal("§7Merged from other instances: §e" + NameCache.getMergedFromOtherInstances()));
+                        if (NameCache.getDatasetSize() > 0) {
+                            context.getSource().sendFeedback(Text.literal("§7Imported dataset: §e" + NameCache.getDatasetSize() + " §7profiles §8(§7"
+                                + (NameCache.getDatasetBytes() / (1024 * 1024)) + " MB§8) §8| §7Hits: §a" + NameCache.getDatasetHits()));
+                        }
                         context.getSource().sendFeedback(Text.literal("§7Cache Hits: §a" + NameCache.getCacheHits()));
                         context.getSource().sendFeedback(Text.literal("§7Cache Misses: §c" + NameCache.getCacheMisses()));
                         context.getSource().sendFeedback(Text.literal("§7Hit Rate: §e" + String.format("%.1f", NameCache.getCacheHitRate()) + "%"));
-                        context.getSource().sendFeedback(Text.literal("§7Expiry: §e" + NameCache.getCacheExpiryMinutes() + " §7minutes"));
+                        context.getSource().sendFeedback(Text.literal("§7Evictions: §e" + NameCache.getEvictionCount()));
+                        context.getSource().sendFeedback(Text.literal("§7Stale Served: §e" + NameCache.getStaleHits() + " §8| §7Refreshes: §e" + NameCache.getRefreshCount()));
+                        context.getSource().sendFeedback(Text.literal("§7Availability Cache: §e" + AvailabilityCache.size() + " §7names §8| §7Hits: §a" + AvailabilityCache.getHits() + " §8| §7Misses: §c" + AvailabilityCache.getMisses()));
+                        context.getSource().sendFeedback(Text.literal("§7Bedrock Cache: §e" + BedrockCache.size() + " §7gamertags §8| §7Hits: §a" + BedrockCache.getHits()
+                            + " §8| §7Prefetched: §e" + BedrockCache.getPrefetched() + " §8| §7Queued: §e" + BedrockCache.getQueueLength()));
+                        context.getSource().sendFeedback(Text.literal("§7Negative Hits: §e" + NameCache.getNegativeHits() + " §8(§7" + NameCache.getNegativeCacheSize() + " not-found names§8)"));
+                        context.getSource().sendFeedback(Text.literal("§7Expiry: §e" + NameCache.getHistoryExpiryMinutes() / 60 + " §7hours history §8| §e"
+                            + NameCache.getCacheExpiryMinutes() + " §7minutes availability"));
                         context.getSource().sendFeedback(Text.literal("§7Offline Mode: " + (NameCache.isOfflineMode() ? "§aEnabled" : "§cDisabled")));
+                        context.getSource().sendFeedback(Text.literal("§7Request Coalescing: §e" + NameApi.getFlightStats()));
+                        context.getSource().sendFeedback(Text.literal("§7API Rates: §e" + NameApi.getRateStats()));
                         context.getSource().sendFeedback(Text.literal(NameCheckCommand.SEPARATOR));
                         return 1;
                     })
                     .then(ClientCommandManager.literal("clear")
                         .executes(context -> {
                             NameCache.clearCache();
+                            AvailabilityCache.clear();
+                            BedrockCache.clear();
+                            ProfileRenderCache.clear();
                             context.getSource().sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§aCache cleared!"));
                             return 1;
                         })
                     )
+                    .then(ClientCommandManager.literal("stats")
+                        .executes(context -> {
+                            showCacheStats(context.getSource());
+                            return 1;
+                        })
+                        .then(ClientCommandManager.literal("dump")
+                            .executes(context -> {
+                                runStatsDump(context.getSource());
+                                return 1;
+                            })
+                        )
+                    )
+                    .then(ClientCommandManager.literal("import")
+                        .then(ClientCommandManager.argument("file", StringArgumentType.greedyString())
+                            .executes(context -> {
+                                runDatasetImport(context.getSource(), StringArgumentType.getString(context, "file"));
+                                return 1;
+                            })
+                        )
+                    )
                     .then(ClientCommandManager.literal("offline")
                         .executes(context -> {
                             boolean newState = !NameCache.isOfflineMode();
@@ -181,8 +234,79 @@ public class X7tNameCheckerClient implements ClientModInitializer {
         
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             WatchlistManager.shutdown();
+            LookupExecutor.shutdown();
             NameCache.shutdown();
+            BedrockCache.shutdown();
+            HttpTransport.shutdown();
         }));
+        
+        LOGGER.info("x7t Name Checker initialized in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void runDatasetImport(FabricClientCommandSource source, String file) {
+        source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§7Importing §f" + file + "§7..."));
+        try {
+            LookupExecutor.submit(() -> {
+                try {
+                    DatasetImporter.Result result = NameCache.importDataset(file,
+                        profiles -> source.sendFeedback(Text.literal("§7  " + profiles + " profiles read...")));
+                    source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§aImported §e" + result.profiles() + " §aprofiles §8(§7"
+                        + result.keys() + " names, " + result.skipped() + " skipped, " + result.bytes() / (1024 * 1024) + " MB, "
+                        + result.nanos() / 1_000_000 + " ms§8)"));
+                } catch (Exception e) {
+                    LOGGER.warn("Dataset import from {} failed: {}", file, e.getMessage());
+                    source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cImport failed: " + e.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cToo many lookups in progress, try again shortly."));
+        }
+    }
+
+    // Walks the whole heap cache for the age histogram and writes a file, so not on the client thread
+    private static void runStatsDump(FabricClientCommandSource source) {
+        try {
+            LookupExecutor.submit(() -> {
+                try {
+                    Path file = CacheStats.dump();
+                    source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§aCache stats written to §f" + file.getFileName()));
+                } catch (IOException e) {
+                    source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cCould not write cache stats: " + e.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            source.sendFeedback(Text.literal(NameCheckCommand.PREFIX + "§cToo many lookups in progress, try again shortly."));
+        }
+    }
+
+    private static void showCacheStats(FabricClientCommandSource source) {
+        CacheJournal journal = NameCache.getJournal();
+        long size = NameCache.getCacheSize();
+        long offHeapSize = NameCache.getOffHeapSize();
+        source.sendFeedback(Text.literal(NameCheckCommand.SEPARATOR));
+        source.sendFeedback(Text.literal("§8[§bx7t Cache Stats§8]"));
+        source.sendFeedback(Text.literal(""));
+        for (CacheStats.Source lookupSource : CacheStats.Source.values()) {
+            source.sendFeedback(Text.literal("§7" + lookupSource.name().charAt(0) + lookupSource.name().substring(1).toLowerCase()
+                + ": §a" + CacheStats.getHits(lookupSource) + " §7hits §8| §c" + CacheStats.getMisses(lookupSource) + " §7misses"));
+        }
+        long[] ages = NameCache.getAgeHistogram();
+        StringBuilder histogram = new StringBuilder("§7Entry Ages:");
+        for (int i = 0; i < ages.length; i++) {
+            histogram.append(" §8").append(CacheStats.AGE_LABELS[i]).append(" §e").append(ages[i]);
+        }
+        source.sendFeedback(Text.literal(histogram.toString()));
+        source.sendFeedback(Text.literal("§7Expired: §e" + NameCache.getExpiredCount() + " §8| §7Evicted: §e" + NameCache.getEvictionCount()
+            + " §8| §7Partial Refreshes: §e" + NameCache.getPartialRefreshCount()));
+        source.sendFeedback(Text.literal("§7Per Entry: §e~" + (size > 0 ? NameCache.getEstimatedBytes() / size : 0) + " B §7heap §8| §e"
+            + (offHeapSize > 0 ? NameCache.getOffHeapBytes() / offHeapSize : 0) + " B §7off-heap"));
+        source.sendFeedback(Text.literal("§7Load: §e" + String.format("%.1f", journal.getLastLoadNanos() / 1_000_000.0) + " ms §8(§7"
+            + journal.getLastLoadBytes() / 1024 + " KB§8) §8| §7Save: §e" + String.format("%.1f", journal.getLastSaveNanos() / 1_000_000.0)
+            + " ms §8(§7" + journal.getLastSaveBytes() / 1024 + " KB§8)"));
+        source.sendFeedback(Text.literal("§7Last Flush: §e" + String.format("%.2f", journal.getLastFlushNanos() / 1_000_000.0) + " ms §8(§7"
+            + journal.getLastFlushBytes() + " B§8) §8| §7Compactions: §e" + journal.getCompactions()));
+        source.sendFeedback(Text.literal("§7§oUse /namecheck cache stats dump for a JSON file"));
+        source.sendFeedback(Text.literal(NameCheckCommand.SEPARATOR));
     }
 
     private static void showWatchlist(FabricClientCommandSource source) {
@@ -222,6 +346,8 @@ public class X7tNameCheckerClient implements ClientModInitializer {
         source.sendFeedback(Text.literal("§7Commands:"));
         source.sendFeedback(Text.literal("  §f/namecheck <name> §8- §7Check name history"));
         source.sendFeedback(Text.literal("  §f/namecheck available <name> §8- §7Check availability"));
+        source.sendFeedback(Text.literal("  §f/namecheck owners <name> [date] §8- §7Who held a name"));
+        source.sendFeedback(Text.literal("  §f/namecheck search <fragment> §8- §7Find cached names"));
         source.sendFeedback(Text.literal("  §f/namecheck bedrock <gamertag> §8- §7Check Bedrock player"));
         source.sendFeedback(Text.literal("  §f/namecheck watch <name> §8- §7Watch name"));
         source.sendFeedback(Text.literal("  §f/namecheck unwatch <name> §8- §7Stop watching"));